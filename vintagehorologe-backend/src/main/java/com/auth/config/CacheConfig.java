@@ -1,28 +1,46 @@
 package com.auth.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.TimeUnit;
-
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CacheSpecProperties.class)
 public class CacheConfig {
-    @Bean
-    public Caffeine<Object, Object> caffeineConfig() {
-        return Caffeine.newBuilder()
-                .expireAfterWrite(30, TimeUnit.MINUTES)
-                .maximumSize(1000);
-    }
+    public static final String PRODUCT_DETAIL_CACHE = "productDetail";
+    public static final String USER_CART_CACHE = "userCart";
+    public static final String IDENTITY_CACHE = "identity";
 
     @Bean
-    public CacheManager cacheManager(Caffeine<Object, Object> caffeine) {
+    public CacheManager cacheManager(CacheSpecProperties properties) {
         CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
-        caffeineCacheManager.setCaffeine(caffeine);
+        caffeineCacheManager.setCaffeine(builder("default", properties.getDefaults()));
+        // Registered up front so each cache and its statistics are bound to actuator metrics at startup
+        properties.getSpecs().forEach((name, spec) ->
+                caffeineCacheManager.registerCustomCache(name, builder(name, spec).build()));
         return caffeineCacheManager;
     }
-}
\ No newline at end of file
+
+    private static Caffeine<Object, Object> builder(String name, CacheSpecProperties.Spec spec) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (spec.getMaximumWeight() != null) {
+            builder.maximumWeight(spec.getMaximumWeight().toBytes()).weigher(EstimatedSizeWeigher.INSTANCE);
+        } else if (spec.getMaximumSize() != null) {
+            builder.maximumSize(spec.getMaximumSize());
+        } else {
+            throw new IllegalStateException("Cache " + name + " needs a maximum-size or maximum-weight");
+        }
+        if (spec.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.getExpireAfterAccess());
+        }
+        return builder;
+    }
+}
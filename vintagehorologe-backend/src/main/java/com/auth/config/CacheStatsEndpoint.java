@@ -0,0 +1,68 @@
+package com.auth.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+// /actuator/cachestats: per-cache hit ratio, evictions and estimated memory, for tuning cache.specs.*
+@Component
+@Endpoint(id = "cachestats")
+public class CacheStatsEndpoint {
+
+    private final CacheManager cacheManager;
+
+    public CacheStatsEndpoint(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @ReadOperation
+    public Map<String, CacheReport> caches() {
+        Map<String, CacheReport> reports = new TreeMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            if (cacheManager.getCache(name) instanceof CaffeineCache caffeineCache) {
+                reports.put(name, report(caffeineCache.getNativeCache()));
+            }
+        }
+        return reports;
+    }
+
+    private static CacheReport report(Cache<Object, Object> cache) {
+        CacheStats stats = cache.stats();
+        Policy.Eviction<Object, Object> eviction = cache.policy().eviction().orElse(null);
+        boolean weighted = eviction != null && eviction.isWeighted();
+        // Weighted caches already track their size in bytes; others are sampled entry by entry
+        long estimatedBytes = weighted
+                ? eviction.weightedSize().orElse(0L)
+                : cache.asMap().values().stream().mapToLong(EstimatedSizeWeigher::estimate).sum();
+        return new CacheReport(
+                cache.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                stats.evictionWeight(),
+                estimatedBytes,
+                new PolicyReport(
+                        eviction != null && !weighted ? eviction.getMaximum() : null,
+                        weighted ? eviction.getMaximum() : null,
+                        cache.policy().expireAfterWrite().map(Policy.FixedExpiration::getExpiresAfter).orElse(null),
+                        cache.policy().expireAfterAccess().map(Policy.FixedExpiration::getExpiresAfter).orElse(null)));
+    }
+
+    public record CacheReport(long size, long hits, long misses, double hitRatio,
+                              long evictions, long evictionWeight, long estimatedBytes, PolicyReport policy) {
+    }
+
+    public record PolicyReport(Long maximumSize, Long maximumWeightBytes,
+                               Duration expireAfterWrite, Duration expireAfterAccess) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.auth.config;
+
+import com.auth.dto.CartSnapshot;
+import com.auth.dto.ProductDTO;
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.util.Collection;
+
+// Rough retained size of a cached value in bytes; weighs caches bounded by maximum-weight and
+// gives the cache statistics endpoint its memory estimate
+public class EstimatedSizeWeigher implements Weigher<Object, Object> {
+
+    static final EstimatedSizeWeigher INSTANCE = new EstimatedSizeWeigher();
+
+    private static final int OBJECT_OVERHEAD = 64;
+    private static final int DEFAULT_ESTIMATE = 1024;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        return estimate(value);
+    }
+
+    public static int estimate(Object value) {
+        if (value instanceof ProductDTO product) {
+            return 512 + chars(product.getName()) + chars(product.getDescription())
+                    + chars(product.getMaterials()) + chars(product.getCategory())
+                    + chars(product.getArtisanName()) + chars(product.getArtisanLocation())
+                    + count(product.getImages()) * 160
+                    + (product.getImageData() == null ? 0
+                        : product.getImageData().stream().mapToInt(EstimatedSizeWeigher::chars).sum());
+        }
+        if (value instanceof CartSnapshot cart) {
+            return OBJECT_OVERHEAD * 2 + cart.items().stream()
+                    .mapToInt(item -> 192 + chars(item.productName()))
+                    .sum();
+        }
+        if (value instanceof Number) {
+            return OBJECT_OVERHEAD;
+        }
+        return DEFAULT_ESTIMATE;
+    }
+
+    private static int count(Collection<?> values) {
+        return values == null ? 0 : values.size();
+    }
+
+    // Latin-1 strings take one byte per character, plus the String and array headers
+    private static int chars(String value) {
+        return value == null ? 0 : OBJECT_OVERHEAD + value.length();
+    }
+}
@@ -5,6 +5,7 @@ import com.auth.dto.AdminLoginRequest;
 import com.auth.model.User;
 import com.auth.repository.UserRepository;
 import com.auth.service.JwtUtil;
+import com.auth.service.ReviewStatsRebuildJob;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +23,7 @@ public class AdminController {
     private final AuthenticationManager authenticationManager;
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
+    private final ReviewStatsRebuildJob reviewStatsRebuildJob;
 
 
     @PostMapping("/auth/login")
@@ -69,6 +71,8 @@ public class AdminController {
         }
     }
 
-
-
-}
\ No newline at end of file
+    @PostMapping("/review-stats/rebuild")
+    public ResponseEntity<?> rebuildReviewStats() {
+        return ResponseEntity.ok(Collections.singletonMap("repaired", reviewStatsRebuildJob.rebuild()));
+    }
+}
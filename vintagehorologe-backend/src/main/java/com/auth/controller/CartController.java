@@ -1,13 +1,15 @@
 package com.auth.controller;
 
+import com.auth.dto.CartBatchRequest;
 import com.auth.dto.CartDTO;
-import com.auth.model.Cart;
+import com.auth.dto.CartSummaryDTO;
 import com.auth.service.CachedCartService;
 import com.auth.service.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Collections;
 import java.util.Map;
 
 @RestController
@@ -18,36 +20,56 @@ public class CartController {
     private final JwtUtil jwtUtil;
 
     @PostMapping("/add")
-    public ResponseEntity<Cart> addToCart(
+    public ResponseEntity<CartDTO> addToCart(
             @RequestParam Long productId,
             @RequestParam(defaultValue = "1") int quantity,
             @RequestHeader("Authorization") String token) {
         String email = jwtUtil.extractUsername(token.substring(7));
-        return ResponseEntity.ok(cachedCartService.addToCart(email, productId, quantity));
+        return ResponseEntity.ok(new CartDTO(cachedCartService.addToCart(email, productId, quantity)));
     }
 
     @DeleteMapping("/remove/{itemId}")
-    public ResponseEntity<Cart> removeFromCart(
+    public ResponseEntity<CartDTO> removeFromCart(
             @PathVariable Long itemId,
             @RequestHeader("Authorization") String token) {
         String email = jwtUtil.extractUsername(token.substring(7));
-        return ResponseEntity.ok(cachedCartService.removeFromCart(email, itemId));
+        return ResponseEntity.ok(new CartDTO(cachedCartService.removeFromCart(email, itemId)));
     }
 
     @GetMapping
     public ResponseEntity<CartDTO> getCart(@RequestHeader("Authorization") String token) {
         String email = jwtUtil.extractUsername(token.substring(7));
-        Cart cart = cachedCartService.getCart(email);
-        return ResponseEntity.ok(new CartDTO(cart));
+        return ResponseEntity.ok(new CartDTO(cachedCartService.getCart(email)));
+    }
+
+    // Item count, quantities and subtotal for the header badge; never touches product images
+    @GetMapping("/summary")
+    public ResponseEntity<CartSummaryDTO> getSummary(@RequestHeader("Authorization") String token) {
+        String email = jwtUtil.extractUsername(token.substring(7));
+        return ResponseEntity.ok(cachedCartService.getSummary(email));
     }
 
     @PutMapping("/update/{itemId}")
-    public ResponseEntity<Cart> updateCartItem(
+    public ResponseEntity<CartDTO> updateCartItem(
             @PathVariable Long itemId,
             @RequestBody Map<String, Integer> request,
             @RequestHeader("Authorization") String token) {
         String email = jwtUtil.extractUsername(token.substring(7));
         int quantity = request.get("quantity");
-        return ResponseEntity.ok(cachedCartService.updateCartItem(email, itemId, quantity));
+        return ResponseEntity.ok(new CartDTO(cachedCartService.updateCartItem(email, itemId, quantity)));
+    }
+
+    // Several add/update/remove operations in one transaction, e.g. when restoring a wishlist
+    @PatchMapping
+    public ResponseEntity<CartDTO> applyBatch(
+            @RequestBody CartBatchRequest request,
+            @RequestHeader("Authorization") String token) {
+        String email = jwtUtil.extractUsername(token.substring(7));
+        return ResponseEntity.ok(new CartDTO(cachedCartService.applyBatch(email, request.getOperations())));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgumentException(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Collections.singletonMap("error", ex.getMessage()));
     }
-}
\ No newline at end of file
+}
@@ -34,6 +34,13 @@ public class GlobalExceptionHandler {
                 .body(Collections.singletonMap("error", "Database operation failed"));
     }
 
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException ex) {
+        logger.warn("Bad request: {}", ex.getMessage());
+        return ResponseEntity.badRequest()
+                .body(Collections.singletonMap("error", ex.getMessage()));
+    }
+
     @ExceptionHandler(UsernameNotFoundException.class)
     public ResponseEntity<Map<String, String>> handleUsernameNotFoundException(UsernameNotFoundException ex) {
         logger.warn("User not found: {}", ex.getMessage());
@@ -7,6 +7,7 @@ import com.auth.repository.ArtisanRepository;
 import com.auth.repository.OrderRepository;
 import com.auth.repository.ProductRepository;
 import com.auth.repository.UserRepository;
+import com.auth.service.IdentityCache;
 import com.auth.service.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -26,6 +27,7 @@ import java.util.stream.Collectors;
 public class OrderController {
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
+    private final IdentityCache identityCache;
     private final JwtUtil jwtUtil;
     private final ArtisanRepository artisanRepository;
     private final ProductRepository productRepository;
@@ -62,8 +64,7 @@ public class OrderController {
             @RequestHeader("Authorization") String token) {
 
         String email = jwtUtil.extractUsername(token.substring(7));
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        User user = userRepository.getReferenceById(identityCache.userId(email));
 
         List<Order> orders = orderRepository.findByOrderDateBetweenAndUser(start, end, user);
         return ResponseEntity.ok(orders);
@@ -113,13 +114,10 @@ public class OrderController {
 
     private User validateUser(Long userId, String token) {
         String email = jwtUtil.extractUsername(token.substring(7));
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        if (!user.getEmail().equals(email)) {
+        if (!userId.equals(identityCache.userId(email))) {
             throw new RuntimeException("Unauthorized access");
         }
-        return user;
+        return userRepository.getReferenceById(userId);
     }
 
     @ExceptionHandler(RuntimeException.class)
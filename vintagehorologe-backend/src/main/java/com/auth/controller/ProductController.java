@@ -1,30 +1,62 @@
 package com.auth.controller;
 
+import com.auth.config.AsyncTimeoutConfig;
+import com.auth.dto.BulkProductUpdateRequest;
+import com.auth.dto.BulkProductUpdateResult;
+import com.auth.dto.CatalogVersion;
+import com.auth.dto.CursorPage;
+import com.auth.dto.FacetedProductPage;
+import com.auth.dto.InventoryItemDTO;
 import com.auth.dto.ProductDTO;
+import com.auth.dto.ProductImportReport;
 import com.auth.dto.ProductRequest;
+import com.auth.dto.ProductSummaryDTO;
 import com.auth.dto.ReviewDTO;
+import com.auth.dto.SuggestionDTO;
 import com.auth.model.Artisan;
+import com.auth.model.DerivativeStatus;
+import com.auth.model.ImageVariant;
 import com.auth.model.Product;
 import com.auth.model.ProductImage;
 import com.auth.repository.ArtisanRepository;
 import com.auth.repository.ProductImageRepository;
 import com.auth.repository.ProductRepository;
+import com.auth.service.CachedProductService;
+import com.auth.service.IdentityCache;
+import com.auth.service.ImageStorage;
+import com.auth.service.ProductImageMigrationJob;
+import com.auth.service.ProductExportService;
+import com.auth.service.ProductFacetIndex;
+import com.auth.service.ProductImportService;
+import com.auth.service.ProductSearchIndex;
 import com.auth.service.ProductServiceImpl;
+import com.auth.service.ProductSuggestService;
 import com.auth.service.ReviewServiceImpl;
-import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @RestController
@@ -33,26 +65,64 @@ public class ProductController {
 
     private static final Logger log = LoggerFactory.getLogger(ProductController.class);
 
+    // Catalog data may be stored by browsers and the CDN but must be revalidated on every use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
     private final ProductServiceImpl productServiceImpl;
     private final ArtisanRepository artisanRepository;
     private final ProductRepository productRepository;
     private final ProductImageRepository productImageRepository;
     private final ReviewServiceImpl reviewService;
+    private final ImageStorage imageStorage;
+    private final ProductImageMigrationJob imageMigrationJob;
+    private final CachedProductService cachedProductService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductSuggestService productSuggestService;
+    private final ProductExportService productExportService;
+    private final ProductImportService productImportService;
+    private final IdentityCache identityCache;
+
+    @Value("${catalog.export.timeout-ms:600000}")
+    private long exportTimeoutMs;
 
     public ProductController(ProductServiceImpl productServiceImpl,
                              ArtisanRepository artisanRepository,
                              ProductRepository productRepository,
                              ProductImageRepository productImageRepository,
-                             ReviewServiceImpl reviewService) {
+                             ReviewServiceImpl reviewService,
+                             ImageStorage imageStorage,
+                             ProductImageMigrationJob imageMigrationJob,
+                             CachedProductService cachedProductService,
+                             ProductSearchIndex productSearchIndex,
+                             ProductFacetIndex productFacetIndex,
+                             ProductSuggestService productSuggestService,
+                             ProductExportService productExportService,
+                             ProductImportService productImportService,
+                             IdentityCache identityCache) {
         this.productServiceImpl = productServiceImpl;
         this.artisanRepository = artisanRepository;
         this.productRepository = productRepository;
         this.productImageRepository = productImageRepository;
         this.reviewService = reviewService;
+        this.imageStorage = imageStorage;
+        this.imageMigrationJob = imageMigrationJob;
+        this.cachedProductService = cachedProductService;
+        this.productSearchIndex = productSearchIndex;
+        this.productFacetIndex = productFacetIndex;
+        this.productSuggestService = productSuggestService;
+        this.productExportService = productExportService;
+        this.productImportService = productImportService;
+        this.identityCache = identityCache;
     }
 
     @GetMapping("/images/{imageId}")
-    public ResponseEntity<byte[]> getProductImage(@PathVariable Long imageId) {
+    public ResponseEntity<Resource> getProductImage(
+            @PathVariable Long imageId,
+            @RequestParam(required = false) String variant,
+            WebRequest webRequest) throws IOException {
+        ImageVariant requestedVariant = ImageVariant.fromParam(variant);
+
         // Validate that imageId is positive
         if (imageId <= 0) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
@@ -62,10 +132,24 @@ public class ProductController {
         ProductImage image = productImageRepository.findById(imageId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Image not found"));
 
-        // Return the image data with proper content type
+        // Images not yet drained from the legacy blob column are migrated on first request
+        String storageKey = image.getStorageKey() != null ?
+                image.getStorageKey(requestedVariant) :
+                imageMigrationJob.migrateImage(imageId)
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Image not found"));
+
+        // Stored objects never change, so the storage key is a strong validator
+        if (webRequest.checkNotModified("\"" + storageKey + "\"")) {
+            return null;
+        }
+
+        // Stream the stored file instead of materializing it on the heap
+        Resource resource = imageStorage.load(storageKey);
         return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(image.getImageType()))
-                .body(image.getImageData());
+                .cacheControl(imageCacheControl(image, requestedVariant))
+                .contentType(MediaType.parseMediaType(image.getContentType(requestedVariant)))
+                .contentLength(resource.contentLength())
+                .body(resource);
     }
 
 
@@ -85,30 +169,87 @@ public class ProductController {
 
     @GetMapping("/{productId}/reviews")
     public ResponseEntity<List<ReviewDTO>> getProductReviews(
-            @PathVariable Long productId) {
-        return ResponseEntity.ok(reviewService.getProductReviews(productId));
+            @PathVariable Long productId,
+            @RequestParam(required = false) String sort) {
+        return ResponseEntity.ok(reviewService.getProductReviews(productId, sort));
+    }
+
+    // Cursor-paginated variant; the plain list above keeps its original shape for existing clients
+    @GetMapping("/{productId}/reviews/page")
+    public ResponseEntity<CursorPage<ReviewDTO>> getProductReviewPage(
+            @PathVariable Long productId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(reviewService.getProductReviews(productId, sort, cursor, size));
     }
 
     @GetMapping("/my-products")
     public ResponseEntity<List<ProductDTO>> getArtisanProducts(Authentication authentication) {
-        Artisan artisan = getAuthenticatedArtisan(authentication);
-        log.debug("Fetching products for artisan ID: {}", artisan.getId());
+        Long artisanId = getAuthenticatedArtisanId(authentication);
+        log.debug("Fetching products for artisan ID: {}", artisanId);
 
-        List<Product> products = productRepository.findByArtisanId(artisan.getId());
+        List<Product> products = productRepository.findByArtisanId(artisanId);
         return ResponseEntity.ok(products.stream()
                 .map(ProductDTO::new)
                 .collect(Collectors.toList()));
     }
 
-    @Transactional
+    @PatchMapping("/bulk")
+    public ResponseEntity<BulkProductUpdateResult> bulkUpdateProducts(
+            @RequestBody BulkProductUpdateRequest request,
+            Authentication authentication) {
+        return ResponseEntity.ok(productServiceImpl.bulkUpdate(getAuthenticatedArtisanId(authentication), request));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ProductImportReport> importProducts(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format,
+            Authentication authentication) throws IOException {
+        Long artisanId = getAuthenticatedArtisanId(authentication);
+        ProductImportService.Format importFormat =
+                ProductImportService.Format.detect(format, file.getOriginalFilename());
+        try (InputStream input = file.getInputStream()) {
+            return ResponseEntity.ok(productImportService.importProducts(artisanId, input, importFormat));
+        }
+    }
+
+    @GetMapping("/my-products/inventory")
+    public ResponseEntity<Page<InventoryItemDTO>> getArtisanInventory(
+            Authentication authentication,
+            @RequestParam(defaultValue = "false") boolean lowStock,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productServiceImpl.getArtisanInventory(
+                getAuthenticatedArtisanId(authentication), lowStock, active, sort, direction, page, size));
+    }
+
     @GetMapping("/{productId}")
-    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long productId) {
-        Product product = productRepository.findByIdWithImages(productId)
-                .orElseThrow(() -> {
-                    log.error("Product not found with ID: {}", productId);
-                    return new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
-                });
-        return ResponseEntity.ok(new ProductDTO(product));
+    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long productId, WebRequest webRequest) {
+        ProductDTO product;
+        try {
+            product = cachedProductService.getProduct(productId);
+        } catch (NoSuchElementException e) {
+            log.error("Product not found with ID: {}", productId);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+        }
+
+        // Validators come from the cached snapshot, so a cache hit never touches the database
+        long lastModified = CatalogVersion.toEpochMillis(product.getUpdatedAt());
+        long artisanModified = CatalogVersion.toEpochMillis(product.getArtisanUpdatedAt());
+        if (webRequest.checkNotModified(
+                "W/\"product-" + productId + "-" + lastModified + "-" + artisanModified + "-" +
+                        product.getReviewCount() + "\"",
+                Math.max(lastModified, artisanModified))) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE)
+                .body(product);
     }
 
     @PutMapping("/update/{productId}")
@@ -139,20 +280,99 @@ public class ProductController {
     }
 
     @GetMapping
-    public ResponseEntity<List<ProductDTO>> getAllProducts() {
+    public ResponseEntity<List<ProductDTO>> getAllProducts(WebRequest webRequest) {
+        CatalogVersion version = productRepository.findCatalogVersion();
+        if (webRequest.checkNotModified(version.etag(), version.lastModified())) {
+            return null;
+        }
+
         List<Product> products = productRepository.findAllWithArtisanAndImages();
-        return ResponseEntity.ok(products.stream()
-                .map(ProductDTO::new)
-                .collect(Collectors.toList()));
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE)
+                .body(products.stream()
+                        .map(ProductDTO::new)
+                        .collect(Collectors.toList()));
+    }
+
+    // Whole active catalog as NDJSON, one ProductDTO per line, written while it is read
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCatalog(WebRequest webRequest) {
+        webRequest.setAttribute(AsyncTimeoutConfig.TIMEOUT_ATTRIBUTE, exportTimeoutMs, RequestAttributes.SCOPE_REQUEST);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(productExportService::exportActive);
+    }
+
+    @GetMapping("/catalog")
+    public ResponseEntity<CursorPage<ProductDTO>> getCatalogPage(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest webRequest) {
+        CatalogVersion version = productRepository.findCatalogVersion();
+        if (webRequest.checkNotModified(version.etag(), version.lastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE)
+                .body(productServiceImpl.getCatalogPage(category, cursor, size));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductSummaryDTO>> searchProducts(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "0") double ethicalBoost) {
+        return ResponseEntity.ok(productSearchIndex.search(query, Math.min(Math.max(limit, 1), 100), ethicalBoost));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(productSuggestService.suggest(query, Math.min(Math.max(limit, 1), 20)));
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<FacetedProductPage> getFacetedProducts(
+            @RequestParam(required = false) Set<String> category,
+            @RequestParam(required = false) Set<String> priceBand,
+            @RequestParam(required = false) Set<String> material,
+            @RequestParam(required = false) Set<String> ethicalScore,
+            @RequestParam(required = false) Set<String> inStock,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "24") int size) {
+        Map<String, Set<String>> selections = new HashMap<>();
+        putSelection(selections, ProductFacetIndex.CATEGORY, category);
+        putSelection(selections, ProductFacetIndex.PRICE_BAND, priceBand);
+        putSelection(selections, ProductFacetIndex.MATERIAL, material);
+        putSelection(selections, ProductFacetIndex.ETHICAL_SCORE, ethicalScore);
+        putSelection(selections, ProductFacetIndex.IN_STOCK, inStock);
+        return ResponseEntity.ok(productFacetIndex.query(selections, cursor, Math.min(Math.max(size, 1), 100)));
+    }
+
+    private static void putSelection(Map<String, Set<String>> selections, String facet, Set<String> values) {
+        if (values != null && !values.isEmpty()) {
+            selections.put(facet, values);
+        }
+    }
+
+    // Renditions that still fall back to the original must not be pinned by caches
+    private CacheControl imageCacheControl(ProductImage image, ImageVariant variant) {
+        boolean isFinal = variant == ImageVariant.FULL || image.getDerivativeStatus() == DerivativeStatus.READY
+                || image.getDerivativeStatus() == DerivativeStatus.FAILED;
+        return isFinal ?
+                CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable() :
+                CacheControl.maxAge(60, TimeUnit.SECONDS).cachePublic();
     }
 
     private Product getProductIfOwned(Long productId, Authentication authentication) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
 
-        Artisan artisan = getAuthenticatedArtisan(authentication);
-        if (!product.getArtisan().getId().equals(artisan.getId())) {
-            log.warn("Unauthorized access attempt for product ID: {} by artisan ID: {}", productId, artisan.getId());
+        Long artisanId = getAuthenticatedArtisanId(authentication);
+        if (!product.getArtisan().getId().equals(artisanId)) {
+            log.warn("Unauthorized access attempt for product ID: {} by artisan ID: {}", productId, artisanId);
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied");
         }
         return product;
@@ -173,6 +393,11 @@ public class ProductController {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Artisan not found"));
     }
 
+    private Long getAuthenticatedArtisanId(Authentication authentication) {
+        return identityCache.artisanId(authentication.getName())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Artisan not found"));
+    }
+
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<Map<String, String>> handleResponseStatusException(ResponseStatusException ex) {
         Map<String, String> errorResponse = new HashMap<>();
@@ -180,6 +405,13 @@ public class ProductController {
         return new ResponseEntity<>(errorResponse, ex.getStatusCode());
     }
 
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgumentException(IllegalArgumentException ex) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", ex.getMessage());
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGenericException(Exception ex) {
         log.error("Unexpected error occurred: {}", ex.getMessage(), ex);
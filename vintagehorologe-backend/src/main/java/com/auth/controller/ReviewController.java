@@ -1,10 +1,10 @@
 // ReviewController.java
 package com.auth.controller;
 
+import com.auth.dto.CursorPage;
 import com.auth.dto.ReviewDTO;
 import com.auth.dto.ReviewRequest;
-import com.auth.model.User;
-import com.auth.repository.UserRepository;
+import com.auth.service.IdentityCache;
 import com.auth.service.ReviewServiceImpl;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -12,7 +12,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/reviews")
@@ -20,22 +22,35 @@ import java.util.List;
 public class ReviewController {
 
     private final ReviewServiceImpl reviewService;
-    private final UserRepository userRepository;
+    private final IdentityCache identityCache;
 
     @PostMapping
     public ResponseEntity<ReviewDTO> createReview(
             @RequestBody ReviewRequest request,
             Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(reviewService.createReview(request, user.getId()));
+                .body(reviewService.createReview(request, identityCache.userId(authentication.getName())));
     }
 
     @GetMapping("/product/{productId}")
     public ResponseEntity<List<ReviewDTO>> getProductReviews(
-            @PathVariable Long productId) {
-        return ResponseEntity.ok(reviewService.getProductReviews(productId));
+            @PathVariable Long productId,
+            @RequestParam(required = false) String sort) {
+        return ResponseEntity.ok(reviewService.getProductReviews(productId, sort));
+    }
+
+    // Cursor-paginated variant; the plain list above keeps its original shape for existing clients
+    @GetMapping("/product/{productId}/page")
+    public ResponseEntity<CursorPage<ReviewDTO>> getProductReviewPage(
+            @PathVariable Long productId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(reviewService.getProductReviews(productId, sort, cursor, size));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgumentException(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Collections.singletonMap("error", ex.getMessage()));
     }
 }
\ No newline at end of file
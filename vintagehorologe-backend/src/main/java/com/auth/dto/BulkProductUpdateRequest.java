@@ -0,0 +1,18 @@
+package com.auth.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// Stock and/or price changes for many products; null fields are left unchanged
+@Data
+public class BulkProductUpdateRequest {
+    private List<Item> items;
+
+    @Data
+    public static class Item {
+        private Long productId;
+        private Integer stock;
+        private Double price;
+    }
+}
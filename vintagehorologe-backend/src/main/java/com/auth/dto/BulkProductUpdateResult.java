@@ -0,0 +1,14 @@
+package com.auth.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// rejectedIds are products that do not exist or belong to another artisan; nothing was changed for them
+@Getter
+@AllArgsConstructor
+public class BulkProductUpdateResult {
+    private int updated;
+    private List<Long> rejectedIds;
+}
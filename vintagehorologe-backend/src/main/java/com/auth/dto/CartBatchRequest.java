@@ -0,0 +1,42 @@
+package com.auth.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Locale;
+
+// Cart operations applied in order and all-or-nothing: add needs productId, update needs itemId
+// and quantity, remove needs itemId
+@Data
+public class CartBatchRequest {
+    private List<Operation> operations;
+
+    @Data
+    public static class Operation {
+        private String op;
+        private Long productId;
+        private Long itemId;
+        private Integer quantity;
+
+        public Type type() {
+            return Type.fromParam(op);
+        }
+    }
+
+    public enum Type {
+        ADD,
+        UPDATE,
+        REMOVE;
+
+        public static Type fromParam(String param) {
+            if (param == null || param.isBlank()) {
+                throw new IllegalArgumentException("Each operation needs an op");
+            }
+            try {
+                return valueOf(param.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown cart operation: " + param);
+            }
+        }
+    }
+}
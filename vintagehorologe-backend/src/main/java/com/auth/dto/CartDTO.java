@@ -1,22 +1,21 @@
 // CartDTO.java
 package com.auth.dto;
 
-import com.auth.model.Cart;
 import lombok.Getter;
-import lombok.Setter;
 
 import java.util.List;
 
 @Getter
-@Setter
 public class CartDTO {
-    private Long id;
-    private List<CartItemDTO> items;
+    private final Long id;
+    private final List<CartItemDTO> items;
+    private final double total;
 
-    public CartDTO(Cart cart) {
-        this.id = cart.getId();
-        this.items = cart.getItems().stream()
+    public CartDTO(CartSnapshot cart) {
+        this.id = cart.id();
+        this.items = cart.items().stream()
                 .map(CartItemDTO::new)
                 .toList();
+        this.total = cart.total();
     }
-}
\ No newline at end of file
+}
@@ -1,20 +1,42 @@
 // CartItemDTO.java
 package com.auth.dto;
 
-import com.auth.model.CartItem;
+import com.auth.model.ImageVariant;
 import lombok.Getter;
-import lombok.Setter;
+
+import java.util.List;
 
 @Getter
-@Setter
 public class CartItemDTO {
-    private Long id;
-    private ProductDTO product;
-    private int quantity;
+    private final Long id;
+    private final ProductRef product;
+    private final int quantity;
+
+    public CartItemDTO(CartSnapshot.Item item) {
+        this.id = item.itemId();
+        this.product = new ProductRef(item);
+        this.quantity = item.quantity();
+    }
+
+    // The product fields a cart line shows; same names as ProductDTO so clients read either shape
+    @Getter
+    public static class ProductRef {
+        private final Long id;
+        private final String name;
+        private final double price;
+        private final Integer stock;
+        private final List<String> imageData;
+        private final List<ProductImageDTO> images;
 
-    public CartItemDTO(CartItem item) {
-        this.id = item.getId();
-        this.product = new ProductDTO(item.getProduct());
-        this.quantity = item.getQuantity();
+        ProductRef(CartSnapshot.Item item) {
+            this.id = item.productId();
+            this.name = item.productName();
+            this.price = item.unitPrice();
+            this.stock = item.stock();
+            this.images = item.primaryImage() != null ? List.of(item.primaryImage()) : List.of();
+            this.imageData = images.stream()
+                    .map(image -> ProductImageDTO.url(image.getId(), ImageVariant.FULL))
+                    .toList();
+        }
     }
-}
\ No newline at end of file
+}
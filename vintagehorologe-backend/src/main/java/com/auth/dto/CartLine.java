@@ -0,0 +1,18 @@
+package com.auth.dto;
+
+// One cart row joined to its product's scalar columns; constructor projection target for CartRepository
+public record CartLine(Long itemId,
+                       Long productId,
+                       String productName,
+                       Double unitPrice,
+                       Integer quantity,
+                       Integer stock) {
+
+    public double lineTotal() {
+        return unitPrice * quantity;
+    }
+
+    public boolean isAvailable() {
+        return stock != null && quantity <= stock;
+    }
+}
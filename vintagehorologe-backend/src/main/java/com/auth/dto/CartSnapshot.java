@@ -0,0 +1,38 @@
+package com.auth.dto;
+
+import java.util.List;
+
+// Immutable view of a user's cart held in the userCart cache; built inside the transaction
+// that loaded or changed the cart, so reading it never touches Hibernate
+public record CartSnapshot(Long id, List<Item> items) {
+
+    public CartSnapshot {
+        items = List.copyOf(items);
+    }
+
+    public static CartSnapshot empty(Long cartId) {
+        return new CartSnapshot(cartId, List.of());
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    public double total() {
+        return items.stream().mapToDouble(Item::lineTotal).sum();
+    }
+
+    // primaryImage is null when the product has no images
+    public record Item(Long itemId,
+                       Long productId,
+                       String productName,
+                       double unitPrice,
+                       int quantity,
+                       Integer stock,
+                       ProductImageDTO primaryImage) {
+
+        public double lineTotal() {
+            return unitPrice * quantity;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.auth.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+// Counts and prices for the header badge and cart totals, without product images
+@Getter
+public class CartSummaryDTO {
+    private final int itemCount;
+    private final int totalQuantity;
+    private final double subtotal;
+    // True when some line asks for more than is in stock
+    private final boolean stockShortfall;
+    private final List<CartLine> lines;
+
+    public CartSummaryDTO(List<CartLine> lines) {
+        this.lines = List.copyOf(lines);
+        this.itemCount = lines.size();
+        this.totalQuantity = lines.stream().mapToInt(CartLine::quantity).sum();
+        this.subtotal = lines.stream().mapToDouble(CartLine::lineTotal).sum();
+        this.stockShortfall = lines.stream().anyMatch(line -> !line.isAvailable());
+    }
+
+    public static CartSummaryDTO of(CartSnapshot cart) {
+        return new CartSummaryDTO(cart.items().stream()
+                .map(item -> new CartLine(item.itemId(), item.productId(), item.productName(),
+                        item.unitPrice(), item.quantity(), item.stock()))
+                .toList());
+    }
+}
@@ -0,0 +1,22 @@
+package com.auth.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+// Cheap aggregate that changes whenever any catalog listing could change; used for ETags
+public record CatalogVersion(Long productCount, LocalDateTime productsUpdatedAt, LocalDateTime artisansUpdatedAt) {
+
+    public String etag() {
+        return "W/\"catalog-" + productCount + "-" + lastModified() + "\"";
+    }
+
+    public long lastModified() {
+        return Math.max(toEpochMillis(productsUpdatedAt), toEpochMillis(artisansUpdatedAt));
+    }
+
+    // updated_at is stored in UTC, but Hibernate reads it back through hibernate.jdbc.time_zone into JVM local
+    // time, the same clock @UpdateTimestamp and JdbcTimestamps write from
+    public static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp == null ? 0L : timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,18 @@
+package com.auth.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+// A page of products matching the selected facets, plus counts per facet value (facet -> value -> count)
+@Getter
+@AllArgsConstructor
+public class FacetedProductPage {
+    private List<ProductSummaryDTO> items;
+    private String nextCursor;
+    private boolean hasMore;
+    private int total;
+    private Map<String, Map<String, Integer>> facets;
+}
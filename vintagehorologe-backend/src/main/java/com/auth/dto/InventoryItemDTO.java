@@ -0,0 +1,36 @@
+package com.auth.dto;
+
+import com.auth.model.ImageVariant;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// Row of the artisan inventory table
+@Getter
+public class InventoryItemDTO {
+    private final Long id;
+    private final String name;
+    private final Double price;
+    private final Integer stock;
+    private final boolean active;
+    private final boolean lowStock;
+    private final LocalDateTime createdAt;
+    private final long imageCount;
+    private final Long firstImageId;
+    private final String thumbnailUrl;
+
+    public InventoryItemDTO(InventoryItemView view, int lowStockThreshold) {
+        this.id = view.getId();
+        this.name = view.getName();
+        this.price = view.getPrice();
+        this.stock = view.getStock();
+        this.active = Boolean.TRUE.equals(view.getActive());
+        this.lowStock = view.getStock() != null && view.getStock() <= lowStockThreshold;
+        this.createdAt = view.getCreatedAt();
+        this.imageCount = view.getImageCount() != null ? view.getImageCount() : 0L;
+        this.firstImageId = view.getFirstImageId();
+        this.thumbnailUrl = view.getFirstImageId() != null ?
+                ProductImageDTO.url(view.getFirstImageId(), ImageVariant.THUMBNAIL) :
+                null;
+    }
+}
@@ -0,0 +1,22 @@
+package com.auth.dto;
+
+import java.time.LocalDateTime;
+
+// Interface projection for the artisan inventory table; aliases in ProductRepository.findInventory map onto these getters
+public interface InventoryItemView {
+    Long getId();
+
+    String getName();
+
+    Double getPrice();
+
+    Integer getStock();
+
+    Boolean getActive();
+
+    LocalDateTime getCreatedAt();
+
+    Long getImageCount();
+
+    Long getFirstImageId();
+}
@@ -1,17 +1,17 @@
 package com.auth.dto;
 
+import com.auth.model.ImageVariant;
 import com.auth.model.Product;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
-import lombok.Setter;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.List;
-import java.util.Objects;
 import java.util.stream.Collectors;
 
+// Read-only snapshot: instances are shared through the product cache and must not be mutated
 @Getter
-@Setter
 public class ProductDTO {
     private Long id;
     private Integer stock;
@@ -28,8 +28,20 @@ public class ProductDTO {
     private String artisanLocation;
     private Double averageRating;
     private Long reviewCount;
+    private List<ProductImageDTO> images;
+    private LocalDateTime updatedAt;
+    // Part of the detail page validators only, since the page shows artisan fields
+    @JsonIgnore
+    private LocalDateTime artisanUpdatedAt;
 
     public ProductDTO(Product product) {
+        this(product, product.getImages() != null ?
+                product.getImages().stream().map(ProductImageDTO::new).collect(Collectors.toList()) :
+                new ArrayList<>());
+    }
+
+    // Listing variant: image references are supplied by the caller so the images collection is never loaded
+    public ProductDTO(Product product, List<ProductImageDTO> images) {
         this.id = product.getId();
         this.name = product.getName();
         this.description = product.getDescription();
@@ -40,21 +52,13 @@ public class ProductDTO {
         this.ethicalScore = product.getEthicalScore();
         this.averageRating = product.getAverageRating();
         this.reviewCount = product.getReviewCount();
+        this.updatedAt = product.getUpdatedAt();
 
-        // Enhanced image conversion with null safety and error handling
-        this.imageData = product.getImages() != null ?
-                product.getImages().stream()
-                        .map(img -> {
-                            try {
-                                return "data:" + img.getImageType() + ";base64," +
-                                        Base64.getEncoder().encodeToString(img.getImageData());
-                            } catch (Exception e) {
-                                return null;
-                            }
-                        })
-                        .filter(Objects::nonNull)
-                        .collect(Collectors.toList()) :
-                new ArrayList<>();
+        // Images are referenced by URL per rendition; imageData keeps the original-size URLs
+        this.images = List.copyOf(images);
+        this.imageData = images.stream()
+                .map(image -> ProductImageDTO.url(image.getId(), ImageVariant.FULL))
+                .toList();
 
         // Artisan reference handling
         if (product.getArtisan() != null) {
@@ -62,6 +66,7 @@ public class ProductDTO {
             this.artisanName = product.getArtisan().getName();
             this.artisanCategory = product.getArtisan().getCategory();
             this.artisanLocation = product.getArtisan().getLocation();
+            this.artisanUpdatedAt = product.getArtisan().getUpdatedAt();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.auth.dto;
+
+import com.auth.model.Product;
+
+// Flattened, image-free view of an active product used to build the in-memory catalog indexes
+public record ProductDocument(Long id,
+                              String name,
+                              String description,
+                              String category,
+                              String materials,
+                              Double price,
+                              Integer stock,
+                              Double ethicalScore,
+                              String artisanName,
+                              Double averageRating,
+                              Long reviewCount,
+                              Long primaryImageId) {
+
+    public static ProductDocument of(Product product, Long primaryImageId) {
+        return new ProductDocument(
+                product.getId(),
+                product.getName(),
+                product.getDescription(),
+                product.getCategory(),
+                product.getMaterials(),
+                product.getPrice(),
+                product.getStock(),
+                product.getEthicalScore(),
+                product.getArtisan() != null ? product.getArtisan().getName() : null,
+                product.getAverageRating(),
+                product.getReviewCount(),
+                primaryImageId);
+    }
+}
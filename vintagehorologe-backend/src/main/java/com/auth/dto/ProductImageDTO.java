@@ -0,0 +1,47 @@
+package com.auth.dto;
+
+import com.auth.model.DerivativeStatus;
+import com.auth.model.ImageVariant;
+import com.auth.model.ProductImage;
+import lombok.Getter;
+
+// URL references to each rendition of a product image; bytes are fetched from the image endpoint
+@Getter
+public class ProductImageDTO {
+    private static final String IMAGE_PATH = "/api/products/images/";
+
+    private final Long id;
+    private final DerivativeStatus status;
+
+    public ProductImageDTO(Long id, DerivativeStatus status) {
+        this.id = id;
+        this.status = status != null ? status : DerivativeStatus.PENDING;
+    }
+
+    public ProductImageDTO(ProductImage image) {
+        this(image.getId(), image.getDerivativeStatus());
+    }
+
+    // Until renditions are ready, thumbnail and card URLs serve the original
+    public boolean isDerivativesReady() {
+        return status == DerivativeStatus.READY;
+    }
+
+    public String getThumbnailUrl() {
+        return url(id, ImageVariant.THUMBNAIL);
+    }
+
+    public String getCardUrl() {
+        return url(id, ImageVariant.CARD);
+    }
+
+    public String getFullUrl() {
+        return url(id, ImageVariant.FULL);
+    }
+
+    public static String url(Long imageId, ImageVariant variant) {
+        return variant == ImageVariant.FULL ?
+                IMAGE_PATH + imageId :
+                IMAGE_PATH + imageId + "?variant=" + variant.getParam();
+    }
+}
@@ -0,0 +1,26 @@
+package com.auth.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// Outcome of a bulk import, one result per input row in input order
+@Getter
+@AllArgsConstructor
+public class ProductImportReport {
+    private int total;
+    private int imported;
+    private int failed;
+    private List<RowResult> rows;
+
+    @Getter
+    @AllArgsConstructor
+    public static class RowResult {
+        // Line number for CSV and NDJSON input
+        private int row;
+        private boolean success;
+        private Long productId;
+        private String error;
+    }
+}
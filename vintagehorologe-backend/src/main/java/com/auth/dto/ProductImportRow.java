@@ -0,0 +1,20 @@
+package com.auth.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.util.List;
+
+// One product in a bulk import; imageKeys reference blobs already in ImageStorage
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductImportRow {
+    private String name;
+    private String description;
+    private String category;
+    private Double price;
+    private Integer stock;
+    private String materials;
+    private Double ethicalScore;
+    private List<String> imageKeys;
+}
@@ -0,0 +1,34 @@
+package com.auth.dto;
+
+import com.auth.model.ImageVariant;
+import lombok.Getter;
+
+// Compact product card returned by search, facet and suggestion endpoints
+@Getter
+public class ProductSummaryDTO {
+    private final Long id;
+    private final String name;
+    private final String category;
+    private final Double price;
+    private final Integer stock;
+    private final Double ethicalScore;
+    private final String artisanName;
+    private final Double averageRating;
+    private final Long reviewCount;
+    private final String thumbnailUrl;
+
+    public ProductSummaryDTO(ProductDocument document) {
+        this.id = document.id();
+        this.name = document.name();
+        this.category = document.category();
+        this.price = document.price();
+        this.stock = document.stock();
+        this.ethicalScore = document.ethicalScore();
+        this.artisanName = document.artisanName();
+        this.averageRating = document.averageRating();
+        this.reviewCount = document.reviewCount();
+        this.thumbnailUrl = document.primaryImageId() != null ?
+                ProductImageDTO.url(document.primaryImageId(), ImageVariant.THUMBNAIL) :
+                null;
+    }
+}
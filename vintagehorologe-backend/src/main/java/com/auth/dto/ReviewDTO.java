@@ -15,4 +15,14 @@ public class ReviewDTO {
     private Long productId;
 
     public ReviewDTO() {}
+
+    // Constructor projection target for ReviewRepository page queries
+    public ReviewDTO(Long id, Integer rating, String comment, LocalDateTime createdAt, String userName, Long productId) {
+        this.id = id;
+        this.rating = rating;
+        this.comment = comment;
+        this.createdAt = createdAt;
+        this.userName = userName;
+        this.productId = productId;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.auth.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// One autocomplete entry; productId is only set for product suggestions
+@Getter
+@AllArgsConstructor
+public class SuggestionDTO {
+    public enum Type { PRODUCT, CATEGORY, ARTISAN }
+
+    private String text;
+    private Type type;
+    private Long productId;
+    private long popularity;
+}
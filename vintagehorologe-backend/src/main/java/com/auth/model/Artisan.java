@@ -11,7 +11,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "artisans")
+@Table(name = "artisans", indexes = {
+        // Catalog ETags take MAX(updated_at) over all artisans on every listing request
+        @Index(name = "idx_artisans_updated_at", columnList = "updated_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
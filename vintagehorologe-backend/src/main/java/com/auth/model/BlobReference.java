@@ -0,0 +1,29 @@
+package com.auth.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Number of rows pointing at a content-addressed blob in ImageStorage; zero-count blobs are collected after a grace period
+@Entity
+@Table(name = "blob_reference")
+@Getter
+@Setter
+@NoArgsConstructor
+public class BlobReference {
+    @Id
+    @Column(name = "storage_key", length = 64)
+    private String storageKey;
+
+    @Column(nullable = false)
+    private long refCount;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,8 @@
+package com.auth.model;
+
+// Generation state of a product image's resized renditions
+public enum DerivativeStatus {
+    PENDING,
+    READY,
+    FAILED
+}
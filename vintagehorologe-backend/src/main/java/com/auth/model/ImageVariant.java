@@ -0,0 +1,35 @@
+package com.auth.model;
+
+import java.util.Locale;
+
+// Rendition sizes served for product images; FULL is the original upload
+public enum ImageVariant {
+    THUMBNAIL(200),
+    CARD(600),
+    FULL(0);
+
+    private final int maxDimension;
+
+    ImageVariant(int maxDimension) {
+        this.maxDimension = maxDimension;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    public String getParam() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static ImageVariant fromParam(String param) {
+        if (param == null || param.isBlank()) {
+            return FULL;
+        }
+        try {
+            return valueOf(param.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown image variant: " + param);
+        }
+    }
+}
@@ -19,6 +19,12 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(name = "product", indexes = {
+        @Index(name = "idx_product_active_created", columnList = "active, created_at, id"),
+        @Index(name = "idx_product_category_created", columnList = "category, created_at, id"),
+        // MAX(updated_at) for the catalog ETag reads the end of this index instead of scanning the table
+        @Index(name = "idx_product_updated_at", columnList = "updated_at")
+})
 @NamedEntityGraph(
         name = "Product.images",
         attributeNodes = @NamedAttributeNode("images")
@@ -56,6 +62,7 @@ public class Product {
     )
     @JsonManagedReference("product-images")
     @BatchSize(size = 10)
+    @OrderBy("id")
     @Builder.Default
     private List<ProductImage> images = new ArrayList<>();
 
@@ -66,16 +73,18 @@ public class Product {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
-    @Transient
-    private Double averageRating;
+    @Embedded
+    @Builder.Default
+    private ReviewStats reviewStats = new ReviewStats();
 
-    @Transient
-    private Long reviewCount;
+    public Double getAverageRating() {
+        return reviewStats != null ? reviewStats.getAverageRating() : 0.0;
+    }
 
-    public void setReviewStats(Double averageRating, Long reviewCount) {
-        this.averageRating = averageRating;
-        this.reviewCount = reviewCount;
+    public Long getReviewCount() {
+        return reviewStats != null ? reviewStats.getReviewCount() : 0L;
     }
+
     @Column(nullable = false, columnDefinition = "BOOLEAN DEFAULT TRUE")
     private Boolean active = true;
 }
\ No newline at end of file
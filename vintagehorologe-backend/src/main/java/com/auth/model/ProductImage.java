@@ -5,6 +5,9 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 @Entity
 @Getter
 @Setter
@@ -13,14 +16,56 @@ public class ProductImage {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Lob
-    @Column(columnDefinition = "LONGBLOB")
-    private byte[] imageData;
+    // Bytes live in ImageStorage; the legacy image_data column is drained by ProductImageMigrationJob
+    @Column(length = 64)
+    private String storageKey;
+
+    private Long contentLength;
+
+    // Storage keys of the resized renditions; null until they have been generated
+    @Column(length = 64)
+    private String thumbnailKey;
+
+    @Column(length = 64)
+    private String cardKey;
+
+    // Renditions are re-encoded, so they may differ from the original's content type
+    private String derivativeType;
 
-    @ManyToOne
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private DerivativeStatus derivativeStatus = DerivativeStatus.PENDING;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id")
     @JsonBackReference("product-images")
     private Product product;
 
     private String imageType;
-}
\ No newline at end of file
+
+    // Falls back to the original when the requested rendition is not available yet
+    public String getStorageKey(ImageVariant variant) {
+        String key = switch (variant) {
+            case THUMBNAIL -> thumbnailKey;
+            case CARD -> cardKey;
+            case FULL -> storageKey;
+        };
+        return key != null ? key : storageKey;
+    }
+
+    // Distinct blobs this row holds a reference on; small images reuse the original as their renditions
+    public Set<String> getReferencedKeys() {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String key : new String[]{storageKey, thumbnailKey, cardKey}) {
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    public String getContentType(ImageVariant variant) {
+        String key = getStorageKey(variant);
+        return key == null || key.equals(storageKey) || derivativeType == null ? imageType : derivativeType;
+    }
+}
@@ -8,6 +8,10 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_review_product_created", columnList = "product_id, created_at, id"),
+        @Index(name = "idx_review_product_rating", columnList = "product_id, rating, id")
+})
 @Getter @Setter
 public class Review {
     @Id
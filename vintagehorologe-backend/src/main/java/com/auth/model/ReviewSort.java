@@ -0,0 +1,25 @@
+package com.auth.model;
+
+import java.util.Locale;
+
+// Orderings offered by the paginated review listing; ties are always broken by newest id first
+public enum ReviewSort {
+    NEWEST,
+    HIGHEST,
+    LOWEST;
+
+    public String getParam() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static ReviewSort fromParam(String param) {
+        if (param == null || param.isBlank()) {
+            return NEWEST;
+        }
+        try {
+            return valueOf(param.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown review sort: " + param);
+        }
+    }
+}
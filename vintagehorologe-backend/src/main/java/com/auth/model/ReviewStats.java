@@ -0,0 +1,61 @@
+package com.auth.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+// Denormalized review counters kept on the product row; updated in place as reviews are created.
+// Read-only to entity flushes, so saving a Product cannot write back counters it loaded before a
+// concurrent review committed; only the increment, overwrite and import statements write them
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class ReviewStats {
+    public static final int MIN_RATING = 1;
+    public static final int MAX_RATING = 5;
+
+    @Column(name = "review_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long reviewCount;
+
+    @Column(name = "rating_sum", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long ratingSum;
+
+    @Column(name = "rating_1_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long rating1Count;
+
+    @Column(name = "rating_2_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long rating2Count;
+
+    @Column(name = "rating_3_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long rating3Count;
+
+    @Column(name = "rating_4_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long rating4Count;
+
+    @Column(name = "rating_5_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long rating5Count;
+
+    public double getAverageRating() {
+        return reviewCount > 0 ? (double) ratingSum / reviewCount : 0.0;
+    }
+
+    // Index 0 holds the one-star count
+    public long[] getHistogram() {
+        return new long[]{rating1Count, rating2Count, rating3Count, rating4Count, rating5Count};
+    }
+}
@@ -2,11 +2,17 @@ package com.auth.repository;
 
 import com.auth.model.Artisan;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.Optional;
 
 public interface ArtisanRepository extends JpaRepository<Artisan, Long> {
     Optional<Artisan> findByEmail(String email);
     boolean existsByEmail(String email);
 
+    @Query("SELECT a.id FROM Artisan a WHERE a.email = :email")
+    Optional<Long> findIdByEmail(@Param("email") String email);
+
 
 }
\ No newline at end of file
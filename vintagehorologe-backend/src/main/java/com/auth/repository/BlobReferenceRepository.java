@@ -0,0 +1,52 @@
+package com.auth.repository;
+
+import com.auth.model.BlobReference;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface BlobReferenceRepository extends JpaRepository<BlobReference, String> {
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO blob_reference (storage_key, ref_count, updated_at) " +
+            "VALUES (:key, 1, CURRENT_TIMESTAMP) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1, updated_at = CURRENT_TIMESTAMP",
+            nativeQuery = true)
+    int increment(@Param("key") String key);
+
+    // Commits on its own so that a blob stored by a transaction that later rolls back is still collectable
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "INSERT INTO blob_reference (storage_key, ref_count, updated_at) " +
+            "VALUES (:key, 0, CURRENT_TIMESTAMP) " +
+            "ON DUPLICATE KEY UPDATE updated_at = CURRENT_TIMESTAMP",
+            nativeQuery = true)
+    int track(@Param("key") String key);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE BlobReference b SET b.refCount = b.refCount - 1, b.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE b.storageKey = :key AND b.refCount > 0")
+    int decrement(@Param("key") String key);
+
+    // Compared against database time, the same clock that stamps updated_at
+    @Query(value = "SELECT storage_key FROM blob_reference WHERE ref_count = 0 " +
+            "AND updated_at < TIMESTAMPADD(MINUTE, -:graceMinutes, CURRENT_TIMESTAMP) " +
+            "ORDER BY updated_at LIMIT :limit",
+            nativeQuery = true)
+    List<String> findUnreferencedOlderThan(@Param("graceMinutes") int graceMinutes, @Param("limit") int limit);
+
+    // Row lock held while the blob is deleted, so a concurrent upload of the same bytes waits for the cleanup
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM BlobReference b WHERE b.storageKey = :key AND b.refCount = 0")
+    Optional<BlobReference> findUnreferencedForUpdate(@Param("key") String key);
+}
@@ -1,20 +1,21 @@
 package com.auth.repository;
 
+import com.auth.dto.CartLine;
 import com.auth.model.Cart;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.util.List;
 import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
 
+    // Images are looked up separately by reference, so the graph stops at the product row
     @EntityGraph(attributePaths = {
             "items",
-            "items.product",
-            "items.product.artisan",
-            "items.product.images"
+            "items.product"
     })
     @Query("SELECT c FROM Cart c WHERE c.user.id = :userId")
     Optional<Cart> findByUserIdWithItemsAndProducts(@Param("userId") Long userId);
@@ -28,6 +29,14 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     @Query("SELECT c FROM Cart c JOIN c.items i WHERE c.user.email = :email AND i.id = :itemId")
     Optional<Cart> findByUserEmailAndItemId(@Param("email") String email, @Param("itemId") Long itemId);
 
+    // Scalar columns only: reading a cart for display or pricing never loads product entities or images
+    @Query("SELECT new com.auth.dto.CartLine(ci.id, p.id, p.name, p.price, ci.quantity, p.stock) " +
+            "FROM CartItem ci JOIN ci.product p WHERE ci.cart.user.email = :email ORDER BY ci.id")
+    List<CartLine> findLinesByUserEmail(@Param("email") String email);
+
+    @Query("SELECT c.id FROM Cart c WHERE c.user.email = :email")
+    Optional<Long> findIdByUserEmail(@Param("email") String email);
+
     @Modifying
     @Query("DELETE FROM Cart c WHERE c.user.id = :userId")
     void deleteByUserId(@Param("userId") Long userId);
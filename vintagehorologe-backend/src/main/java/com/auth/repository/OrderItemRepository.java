@@ -28,4 +28,10 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
             "JOIN FETCH oi.order " +
             "WHERE oi.product = :product")
     List<OrderItem> findOrderItemsWithDetailsByProduct(@Param("product") Product product);
-}
\ No newline at end of file
+
+    // Units sold per product across paid orders: [productId, quantity]
+    @Query("SELECT oi.product.id, SUM(oi.quantity) FROM OrderItem oi " +
+            "WHERE oi.order.paymentStatus = 'PAID' " +
+            "GROUP BY oi.product.id")
+    List<Object[]> sumPaidQuantityByProduct();
+}
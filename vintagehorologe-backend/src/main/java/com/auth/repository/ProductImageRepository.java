@@ -1,7 +1,40 @@
 package com.auth.repository;
 
+import com.auth.model.DerivativeStatus;
 import com.auth.model.ProductImage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
-}
\ No newline at end of file
+
+    // Returns [productId, imageId, derivativeStatus] rows without loading image data
+    @Query("SELECT i.product.id, i.id, i.derivativeStatus FROM ProductImage i " +
+            "WHERE i.product.id IN :productIds ORDER BY i.id")
+    List<Object[]> findImageRefsByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    @Query("SELECT i.id FROM ProductImage i WHERE i.storageKey IS NOT NULL " +
+            "AND (i.derivativeStatus IS NULL OR i.derivativeStatus = :status) ORDER BY i.id")
+    List<Long> findIdsByDerivativeStatus(@Param("status") DerivativeStatus status, Pageable pageable);
+
+    // An earlier upload of the same bytes whose renditions can be shared
+    Optional<ProductImage> findFirstByStorageKeyAndDerivativeStatusOrderByIdDesc(String storageKey,
+                                                                                 DerivativeStatus derivativeStatus);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProductImage i SET i.thumbnailKey = :thumbnailKey, i.cardKey = :cardKey, " +
+            "i.derivativeType = :derivativeType, i.derivativeStatus = :status WHERE i.id = :id")
+    int updateDerivatives(@Param("id") Long id,
+                          @Param("thumbnailKey") String thumbnailKey,
+                          @Param("cardKey") String cardKey,
+                          @Param("derivativeType") String derivativeType,
+                          @Param("status") DerivativeStatus status);
+}
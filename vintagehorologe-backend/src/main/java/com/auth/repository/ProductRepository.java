@@ -1,13 +1,22 @@
 package com.auth.repository;
 
+import com.auth.dto.CatalogVersion;
+import com.auth.dto.InventoryItemView;
 import com.auth.model.Product;
+import com.auth.model.ReviewStats;
 import org.hibernate.annotations.Where;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -52,6 +61,105 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.artisan a LEFT JOIN FETCH p.images WHERE p.active = true")
     List<Product> findAllWithArtisanAndImages();
 
+    // Inventory rows for one artisan without touching image data; sortable by name, price, stock and createdAt
+    @Query(value = "SELECT p.id AS id, p.name AS name, p.price AS price, p.stock AS stock, p.active AS active, " +
+            "p.createdAt AS createdAt, COUNT(i.id) AS imageCount, MIN(i.id) AS firstImageId " +
+            "FROM Product p LEFT JOIN p.images i " +
+            "WHERE p.artisan.id = :artisanId " +
+            "AND (:maxStock IS NULL OR p.stock <= :maxStock) " +
+            "AND (:active IS NULL OR p.active = :active) " +
+            "GROUP BY p.id, p.name, p.price, p.stock, p.active, p.createdAt",
+            countQuery = "SELECT COUNT(p) FROM Product p " +
+                    "WHERE p.artisan.id = :artisanId " +
+                    "AND (:maxStock IS NULL OR p.stock <= :maxStock) " +
+                    "AND (:active IS NULL OR p.active = :active)")
+    Page<InventoryItemView> findInventory(@Param("artisanId") Long artisanId,
+                                          @Param("maxStock") Integer maxStock,
+                                          @Param("active") Boolean active,
+                                          Pageable pageable);
+
+    // Plain rows without the images graph, for cart stock checks
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids")
+    List<Product> findAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids AND p.artisan.id = :artisanId")
+    List<Long> findIdsOwnedBy(@Param("ids") Collection<Long> ids, @Param("artisanId") Long artisanId);
+
+    @Query("SELECT p.id FROM Product p WHERE p.artisan.id = :artisanId")
+    List<Long> findIdsByArtisanId(@Param("artisanId") Long artisanId);
+
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.images WHERE p.artisan.id = :artisanId AND p.active = true")
     List<Product> findByArtisanId(@Param("artisanId") Long artisanId);
+
+    // Keyset page over active products, newest first; never touches the images collection
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.artisan a " +
+            "WHERE p.active = true " +
+            "AND (:category IS NULL OR p.category = :category) " +
+            "AND (:afterCreatedAt IS NULL OR p.createdAt < :afterCreatedAt " +
+            "OR (p.createdAt = :afterCreatedAt AND p.id < :afterId)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findCatalogPage(@Param("category") String category,
+                                  @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                  @Param("afterId") Long afterId,
+                                  Pageable pageable);
+
+    @Query("SELECT new com.auth.dto.CatalogVersion(COUNT(p), MAX(p.updatedAt), " +
+            "(SELECT MAX(a.updatedAt) FROM Artisan a)) FROM Product p")
+    CatalogVersion findCatalogVersion();
+
+    // Bumps updatedAt when a change outside the entity (e.g. image renditions) alters the product's representation
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.updatedAt = :now " +
+            "WHERE p.id = (SELECT i.product.id FROM ProductImage i WHERE i.id = :imageId)")
+    int touchByImageId(@Param("imageId") Long imageId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.artisan WHERE p.id IN :ids AND p.active = true")
+    List<Product> findActiveWithArtisanByIds(@Param("ids") Collection<Long> ids);
+
+    // Adds one review of the given rating to the product's counters without reading the row first
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET " +
+            "p.reviewStats.reviewCount = p.reviewStats.reviewCount + 1, " +
+            "p.reviewStats.ratingSum = p.reviewStats.ratingSum + :rating, " +
+            "p.reviewStats.rating1Count = p.reviewStats.rating1Count + CASE WHEN :rating = 1 THEN 1 ELSE 0 END, " +
+            "p.reviewStats.rating2Count = p.reviewStats.rating2Count + CASE WHEN :rating = 2 THEN 1 ELSE 0 END, " +
+            "p.reviewStats.rating3Count = p.reviewStats.rating3Count + CASE WHEN :rating = 3 THEN 1 ELSE 0 END, " +
+            "p.reviewStats.rating4Count = p.reviewStats.rating4Count + CASE WHEN :rating = 4 THEN 1 ELSE 0 END, " +
+            "p.reviewStats.rating5Count = p.reviewStats.rating5Count + CASE WHEN :rating = 5 THEN 1 ELSE 0 END, " +
+            "p.updatedAt = :now " +
+            "WHERE p.id = :productId")
+    int incrementReviewStats(@Param("productId") Long productId, @Param("rating") int rating,
+                             @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET " +
+            "p.reviewStats.reviewCount = :#{#stats.reviewCount}, " +
+            "p.reviewStats.ratingSum = :#{#stats.ratingSum}, " +
+            "p.reviewStats.rating1Count = :#{#stats.rating1Count}, " +
+            "p.reviewStats.rating2Count = :#{#stats.rating2Count}, " +
+            "p.reviewStats.rating3Count = :#{#stats.rating3Count}, " +
+            "p.reviewStats.rating4Count = :#{#stats.rating4Count}, " +
+            "p.reviewStats.rating5Count = :#{#stats.rating5Count}, " +
+            "p.updatedAt = :now " +
+            "WHERE p.id = :productId")
+    int overwriteReviewStats(@Param("productId") Long productId, @Param("stats") ReviewStats stats,
+                             @Param("now") LocalDateTime now);
+
+    // Row locks held until the caller's transaction ends; concurrent review counter updates wait behind them
+    @Query(value = "SELECT id FROM product WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id, p.reviewStats FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findReviewStatsByIds(@Param("ids") Collection<Long> ids);
+
+    // Products whose counters were never initialized, e.g. columns added to a table that already had reviews
+    @Query("SELECT p.id FROM Product p WHERE p.reviewStats.reviewCount = 0 " +
+            "AND EXISTS (SELECT r.id FROM Review r WHERE r.product = p) ORDER BY p.id")
+    List<Long> findIdsWithUncountedReviews();
+
+    @Query("SELECT p.id FROM Product p WHERE (:afterId IS NULL OR p.id > :afterId) ORDER BY p.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
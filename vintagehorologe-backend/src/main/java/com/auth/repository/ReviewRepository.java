@@ -1,14 +1,50 @@
 // ReviewRepository.java
 package com.auth.repository;
 
+import com.auth.dto.ReviewDTO;
 import com.auth.model.Review;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ReviewRepository extends JpaRepository<Review, Long> {
     List<Review> findByProductId(Long productId);
 
+    String REVIEW_DTO_SELECT = "SELECT new com.auth.dto.ReviewDTO(r.id, r.rating, r.comment, r.createdAt, u.email, r.product.id) " +
+            "FROM Review r JOIN r.user u WHERE r.product.id = :productId ";
+
+    @Query(REVIEW_DTO_SELECT +
+            "AND (:afterCreatedAt IS NULL OR r.createdAt < :afterCreatedAt " +
+            "OR (r.createdAt = :afterCreatedAt AND r.id < :afterId)) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReviewDTO> findPageNewest(@Param("productId") Long productId,
+                                   @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                   @Param("afterId") Long afterId,
+                                   Pageable pageable);
+
+    @Query(REVIEW_DTO_SELECT +
+            "AND (:afterRating IS NULL OR r.rating < :afterRating " +
+            "OR (r.rating = :afterRating AND r.id < :afterId)) " +
+            "ORDER BY r.rating DESC, r.id DESC")
+    List<ReviewDTO> findPageHighest(@Param("productId") Long productId,
+                                    @Param("afterRating") Integer afterRating,
+                                    @Param("afterId") Long afterId,
+                                    Pageable pageable);
+
+    @Query(REVIEW_DTO_SELECT +
+            "AND (:afterRating IS NULL OR r.rating > :afterRating " +
+            "OR (r.rating = :afterRating AND r.id < :afterId)) " +
+            "ORDER BY r.rating ASC, r.id DESC")
+    List<ReviewDTO> findPageLowest(@Param("productId") Long productId,
+                                   @Param("afterRating") Integer afterRating,
+                                   @Param("afterId") Long afterId,
+                                   Pageable pageable);
+
     @Query("SELECT AVG(r.rating) FROM Review r WHERE r.product.id = ?1")
     Double findAverageRatingByProductId(Long productId);
 
@@ -16,4 +52,14 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     Long countByProductId(Long productId);
 
     boolean existsByProductIdAndUserId(Long productId, Long userId);
+
+    // Recomputes ReviewStats from scratch: [productId, count, ratingSum, 1..5 star counts]
+    @Query("SELECT r.product.id, COUNT(r), SUM(r.rating), " +
+            "SUM(CASE WHEN r.rating = 1 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.rating = 2 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.rating = 3 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.rating = 4 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.rating = 5 THEN 1 ELSE 0 END) " +
+            "FROM Review r WHERE r.product.id IN ?1 GROUP BY r.product.id")
+    List<Object[]> aggregateStatsByProductIds(Collection<Long> productIds);
 }
\ No newline at end of file
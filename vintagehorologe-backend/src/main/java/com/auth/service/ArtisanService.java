@@ -4,21 +4,29 @@ import com.auth.dto.ArtisanRegisterRequest;
 import com.auth.dto.ArtisanUpdateRequest;
 import com.auth.model.Artisan;
 import com.auth.repository.ArtisanRepository;
+import com.auth.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class ArtisanService {
 
     private final ArtisanRepository artisanRepository;
+    private final ProductRepository productRepository;
     private final PasswordEncoder passwordEncoder;
     private final FileStorageService fileStorageService;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Transactional
     public Artisan createArtisan(ArtisanRegisterRequest request, MultipartFile certificate) {
 
         if (artisanRepository.existsByEmail(request.getEmail())) {
@@ -51,6 +59,7 @@ public class ArtisanService {
             throw new RuntimeException("File storage failed: " + e.getMessage(), e);
         }
     }
+    @Transactional
     public Artisan updateArtisan(Long artisanId, ArtisanUpdateRequest request, MultipartFile certificate)
             throws IOException {
         Artisan artisan = artisanRepository.findById(artisanId)
@@ -60,9 +69,16 @@ public class ArtisanService {
             if (artisanRepository.existsByEmail(request.getEmail())) {
                 throw new RuntimeException("Email already registered");
             }
+            eventPublisher.publishEvent(new IdentityChangedEvent(List.of(artisan.getEmail(), request.getEmail())));
             artisan.setEmail(request.getEmail());
         }
 
+        // Product pages and indexes embed the artisan's name, category and location
+        if (changes(request.getName(), artisan.getName()) || changes(request.getCategory(), artisan.getCategory())
+                || changes(request.getLocation(), artisan.getLocation())) {
+            eventPublisher.publishEvent(new ProductChangedEvent(productRepository.findIdsByArtisanId(artisanId)));
+        }
+
         if (request.getName() != null)
             artisan.setName(request.getName());
         if (request.getCategory() != null)
@@ -78,6 +94,7 @@ public class ArtisanService {
 
         if (certificate != null && !certificate.isEmpty()) {
             String certificatePath = fileStorageService.storeFile(certificate);
+            fileStorageService.releaseFile(artisan.getCertificatePath());
             artisan.setCertificatePath(certificatePath);
         }
 
@@ -90,4 +107,8 @@ public class ArtisanService {
 
         return artisanRepository.save(artisan);
     }
+
+    private static boolean changes(String requested, String current) {
+        return requested != null && !Objects.equals(requested, current);
+    }
 }
@@ -0,0 +1,137 @@
+package com.auth.service;
+
+import com.auth.model.ProductImage;
+import com.auth.repository.BlobReferenceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Reference counts for blobs in {@link ImageStorage}. Identical uploads share one blob, so
+ * a blob may only be removed once nothing points at it any more: product images (original
+ * and renditions) and artisan certificates acquire and release references in the same
+ * transaction as the row that holds them, and a periodic collector deletes blobs whose
+ * count has stayed at zero for a grace period. Freshly stored blobs are tracked at zero
+ * straight away, so uploads whose transaction rolls back are collected too.
+ */
+@Service
+public class BlobReferenceService {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobReferenceService.class);
+
+    // One row per distinct key per referencing row, matching ProductImage.getReferencedKeys
+    private static final String BACKFILL_SQL = "INSERT INTO blob_reference (storage_key, ref_count, updated_at) " +
+            "SELECT k, COUNT(*), CURRENT_TIMESTAMP FROM (" +
+            "SELECT storage_key AS k FROM product_image WHERE storage_key IS NOT NULL " +
+            "UNION ALL SELECT thumbnail_key FROM product_image " +
+            "WHERE thumbnail_key IS NOT NULL AND thumbnail_key <> storage_key " +
+            "UNION ALL SELECT card_key FROM product_image WHERE card_key IS NOT NULL AND card_key <> storage_key " +
+            "AND (thumbnail_key IS NULL OR card_key <> thumbnail_key) " +
+            "UNION ALL SELECT certificate_path FROM artisans WHERE CHAR_LENGTH(certificate_path) = 64" +
+            ") refs GROUP BY k";
+
+    private final BlobReferenceRepository blobReferenceRepository;
+    private final ImageStorage imageStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${image.storage.gc.grace-minutes:60}")
+    private int graceMinutes;
+
+    @Value("${image.storage.gc.batch-size:100}")
+    private int batchSize;
+
+    public BlobReferenceService(BlobReferenceRepository blobReferenceRepository,
+                                ImageStorage imageStorage,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager) {
+        this.blobReferenceRepository = blobReferenceRepository;
+        this.imageStorage = imageStorage;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Call right after ImageStorage.store, before the transaction that will reference the blob
+    public void track(String key) {
+        blobReferenceRepository.track(key);
+    }
+
+    public void acquire(String key) {
+        blobReferenceRepository.increment(key);
+        // The collector may have removed the bytes between store() finding them and this increment
+        if (!imageStorage.exists(key)) {
+            throw new IllegalStateException("Stored content was removed concurrently; please retry the upload");
+        }
+    }
+
+    public void release(String key) {
+        blobReferenceRepository.decrement(key);
+    }
+
+    public void acquire(ProductImage image) {
+        image.getReferencedKeys().forEach(this::acquire);
+    }
+
+    public void release(ProductImage image) {
+        image.getReferencedKeys().forEach(this::release);
+    }
+
+    public void releaseAll(List<ProductImage> images) {
+        images.forEach(this::release);
+    }
+
+    // Counts existing references once, for blobs stored before reference counting was introduced;
+    // runs ahead of the other startup jobs so their increments are not mistaken for a finished backfill
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void backfillIfEmpty() {
+        if (blobReferenceRepository.count() > 0) {
+            return;
+        }
+        int keys = jdbcTemplate.update(BACKFILL_SQL);
+        if (keys > 0) {
+            log.info("Backfilled reference counts for {} stored blobs", keys);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${image.storage.gc.interval-ms:3600000}",
+            initialDelayString = "${image.storage.gc.interval-ms:3600000}")
+    public void collectUnreferenced() {
+        int deleted = 0;
+        for (String key : blobReferenceRepository.findUnreferencedOlderThan(graceMinutes, batchSize)) {
+            try {
+                Boolean removed = transactionTemplate.execute(status ->
+                        blobReferenceRepository.findUnreferencedForUpdate(key).map(reference -> {
+                            try {
+                                imageStorage.delete(key);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                            blobReferenceRepository.delete(reference);
+                            return true;
+                        }).orElse(false));
+                if (Boolean.TRUE.equals(removed)) {
+                    deleted++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not collect blob {}: {}", key, e.getMessage());
+            }
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} unreferenced blobs", deleted);
+        }
+    }
+}
@@ -1,48 +1,127 @@
 package com.auth.service;
 
-import com.auth.model.Cart;
+import com.auth.config.CacheConfig;
+import com.auth.dto.CartBatchRequest;
+import com.auth.dto.CartLine;
+import com.auth.dto.CartSummaryDTO;
+import com.auth.dto.CartSnapshot;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Front for all cart operations. The userCart cache holds immutable CartSnapshots. Mutations
+ * for one user run one at a time under {@link UserLocks}, and the cache is written while the
+ * lock is still held, so a slower request can never re-cache an older cart over a newer one.
+ * Inside a larger transaction (checkout) the entry is evicted after commit instead. With the
+ * write-behind engine enabled, mutations go to its in-memory working copy.
+ */
 @Service
 @RequiredArgsConstructor
 public class CachedCartService {
     private final CartService cartService;
+    private final WriteBehindCartEngine writeBehindCartEngine;
+    private final UserLocks userLocks;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @Cacheable(value = "userCart", key = "#userEmail")
-    public Cart getOrCreateCart(String userEmail) {
-        return cartService.getOrCreateCart(userEmail);
+    @Cacheable(value = CacheConfig.USER_CART_CACHE, key = "#userEmail", sync = true)
+    public CartSnapshot getOrCreateCart(String userEmail) {
+        return loadCart(userEmail);
     }
 
-    @Caching(
-            evict = {
-                    @CacheEvict(value = "userCart", key = "#userEmail"),
-                    @CacheEvict(value = "cartItems", key = "#itemId")
-            }
-    )
-    public Cart updateCartItem(String userEmail, Long itemId, int quantity) {
-        return cartService.updateCartItem(userEmail, itemId, quantity);
+    public CartSnapshot updateCartItem(String userEmail, Long itemId, int quantity) {
+        return mutate(userEmail, () -> writeBehindCartEngine.isEnabled() ?
+                writeBehindCartEngine.updateCartItem(userEmail, itemId, quantity) :
+                cartService.updateCartItem(userEmail, itemId, quantity));
+    }
+
+    public CartSnapshot addToCart(String userEmail, Long productId, int quantity) {
+        return mutate(userEmail, () -> writeBehindCartEngine.isEnabled() ?
+                writeBehindCartEngine.addToCart(userEmail, productId, quantity) :
+                cartService.addToCart(userEmail, productId, quantity));
+    }
+
+    public CartSnapshot removeFromCart(String userEmail, Long itemId) {
+        return mutate(userEmail, () -> writeBehindCartEngine.isEnabled() ?
+                writeBehindCartEngine.removeFromCart(userEmail, itemId) :
+                cartService.removeFromCart(userEmail, itemId));
+    }
+
+    public CartSnapshot applyBatch(String userEmail, List<CartBatchRequest.Operation> operations) {
+        return mutate(userEmail, () -> writeBehindCartEngine.isEnabled() ?
+                writeBehindCartEngine.applyBatch(userEmail, operations) :
+                cartService.applyBatch(userEmail, operations));
     }
 
-    @CacheEvict(value = "userCart", key = "#userEmail")
-    public Cart addToCart(String userEmail, Long productId, int quantity) {
-        return cartService.addToCart(userEmail, productId, quantity);
+    // Loads at most once per key at a time; a concurrent write waits for the load and then replaces it
+    @Cacheable(value = CacheConfig.USER_CART_CACHE, key = "#userEmail", sync = true)
+    public CartSnapshot getCart(String userEmail) {
+        return loadCart(userEmail);
     }
 
-    @CacheEvict(value = "userCart", key = "#userEmail")
-    public Cart removeFromCart(String userEmail, Long itemId) {
-        return cartService.removeFromCart(userEmail, itemId);
+    // Fresh prices and stock from one projection query; the in-memory working copy is used when enabled
+    public CartSummaryDTO getSummary(String userEmail) {
+        return writeBehindCartEngine.isEnabled() ?
+                CartSummaryDTO.of(writeBehindCartEngine.getCart(userEmail)) :
+                new CartSummaryDTO(cartService.getCartLines(userEmail));
     }
 
-    @Cacheable(value = "userCart", key = "#userEmail")
-    public Cart getCart(String userEmail) {
-        return cartService.getCart(userEmail);
+    // The lines checkout prices, read from the database after any pending write-behind changes are stored
+    public List<CartLine> getCheckoutLines(String userEmail) {
+        if (writeBehindCartEngine.isEnabled()) {
+            writeBehindCartEngine.flush(userEmail);
+        }
+        return cartService.getCartLines(userEmail);
     }
-    @CacheEvict(value = "userCart", key = "#userEmail")
+
     public void clearCart(String userEmail) {
-        cartService.clearCart(userEmail);
+        mutate(userEmail, () -> {
+            if (writeBehindCartEngine.isEnabled()) {
+                writeBehindCartEngine.clearCart(userEmail);
+            } else {
+                cartService.clearCart(userEmail);
+            }
+            return null;
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCartChanged(CartChangedEvent event) {
+        userCart().evict(event.userEmail());
+    }
+
+    private CartSnapshot mutate(String userEmail, Supplier<CartSnapshot> mutation) {
+        return userLocks.withLock(userEmail, () -> {
+            CartSnapshot cart = mutation.get();
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                // Not committed yet: caching it now could publish a cart that is later rolled back
+                eventPublisher.publishEvent(new CartChangedEvent(userEmail));
+            } else if (cart != null) {
+                userCart().put(userEmail, cart);
+            } else {
+                userCart().evict(userEmail);
+            }
+            return cart;
+        });
+    }
+
+    private CartSnapshot loadCart(String userEmail) {
+        return writeBehindCartEngine.isEnabled() ?
+                writeBehindCartEngine.getCart(userEmail) :
+                cartService.getOrCreateCart(userEmail);
+    }
+
+    private Cache userCart() {
+        return cacheManager.getCache(CacheConfig.USER_CART_CACHE);
     }
-}
\ No newline at end of file
+}
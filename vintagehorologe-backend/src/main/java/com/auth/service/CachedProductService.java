@@ -0,0 +1,33 @@
+package com.auth.service;
+
+import com.auth.config.CacheConfig;
+import com.auth.dto.ProductDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Read model for product pages: immutable ProductDTO snapshots keyed by product id
+@Service
+@RequiredArgsConstructor
+public class CachedProductService {
+    private final ProductServiceImpl productService;
+    private final CacheManager cacheManager;
+
+    @Cacheable(value = CacheConfig.PRODUCT_DETAIL_CACHE, key = "#productId", sync = true)
+    public ProductDTO getProduct(Long productId) {
+        return productService.getProductDetail(productId);
+    }
+
+    // Evicting after commit keeps a concurrent reader from re-caching the pre-change state
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCT_DETAIL_CACHE);
+        if (cache != null) {
+            event.productIds().forEach(cache::evict);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.auth.service;
+
+// Published when a cart changes inside a larger transaction; its cache entry is dropped after commit
+public record CartChangedEvent(String userEmail) {
+}
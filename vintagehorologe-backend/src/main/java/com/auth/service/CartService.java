@@ -1,17 +1,31 @@
 package com.auth.service;
 
+import com.auth.dto.CartBatchRequest;
+import com.auth.dto.CartLine;
+import com.auth.dto.CartSnapshot;
+import com.auth.dto.ProductImageDTO;
 import com.auth.model.Cart;
 import com.auth.model.CartItem;
+import com.auth.model.DerivativeStatus;
 import com.auth.model.Product;
-import com.auth.model.User;
 import com.auth.repository.CartRepository;
+import com.auth.repository.ProductImageRepository;
 import com.auth.repository.ProductRepository;
 import com.auth.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
 @Transactional
 @RequiredArgsConstructor
@@ -19,23 +33,40 @@ public class CartService {
     private final CartRepository cartRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final IdentityCache identityCache;
+    private final ProductImageRepository productImageRepository;
+
+    @Value("${cart.batch.max-operations:100}")
+    private int maxBatchOperations;
 
+    // Built from the scalar cart lines; the cart row is only written when the user has none yet
     @Transactional
-    public Cart getOrCreateCart(String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    public CartSnapshot getOrCreateCart(String userEmail) {
+        Long cartId = cartRepository.findIdByUserEmail(userEmail)
+                .orElseGet(() -> loadOrCreateCart(userEmail).getId());
+        return snapshot(cartId, cartRepository.findLinesByUserEmail(userEmail));
+    }
+
+    // Current prices and stock straight from the product rows, for checkout and the cart summary
+    @Transactional(readOnly = true)
+    public List<CartLine> getCartLines(String userEmail) {
+        return cartRepository.findLinesByUserEmail(userEmail);
+    }
 
-        return cartRepository.findByUserIdWithItemsAndProducts(user.getId())
+    private Cart loadOrCreateCart(String userEmail) {
+        Long userId = identityCache.userId(userEmail);
+
+        return cartRepository.findByUserIdWithItemsAndProducts(userId)
                 .orElseGet(() -> {
                     Cart newCart = new Cart();
-                    newCart.setUser(user);
+                    newCart.setUser(userRepository.getReferenceById(userId));
                     return cartRepository.save(newCart);
                 });
     }
 
-    public Cart addToCart(String userEmail, Long productId, int quantity) {
-        Cart cart = getOrCreateCart(userEmail);
-        Product product = productRepository.findByIdWithImages(productId)
+    public CartSnapshot addToCart(String userEmail, Long productId, int quantity) {
+        Cart cart = loadOrCreateCart(userEmail);
+        Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
         // New stock validation checks
@@ -60,21 +91,23 @@ public class CartService {
                         }
                 );
 
-        return cartRepository.save(cart);
+        // Flush rather than save: the cart is managed, and a new item needs its id for the snapshot
+        cartRepository.flush();
+        return snapshot(cart);
     }
 
-    public Cart removeFromCart(String userEmail, Long itemId) {
-        Cart cart = getOrCreateCart(userEmail);
+    public CartSnapshot removeFromCart(String userEmail, Long itemId) {
+        Cart cart = loadOrCreateCart(userEmail);
         boolean removed = cart.getItems().removeIf(item -> item.getId().equals(itemId));
-        return removed ? cartRepository.save(cart) : cart;
+        return snapshot(removed ? cartRepository.save(cart) : cart);
     }
 
     @Transactional
-    public Cart getCart(String userEmail) {
+    public CartSnapshot getCart(String userEmail) {
         return getOrCreateCart(userEmail);
     }
 
-    public Cart updateCartItem(String userEmail, Long itemId, int quantity) {
+    public CartSnapshot updateCartItem(String userEmail, Long itemId, int quantity) {
         if (quantity < 1) {
             throw new IllegalArgumentException("Quantity must be at least 1");
         }
@@ -94,18 +127,141 @@ public class CartService {
                     item.setQuantity(quantity);
                 });
 
-        return cartRepository.save(cart);
+        return snapshot(cartRepository.save(cart));
+    }
+
+    // Applies every operation or none; products are read once for all referenced ids
+    public CartSnapshot applyBatch(String userEmail, List<CartBatchRequest.Operation> operations) {
+        validateBatch(operations, maxBatchOperations);
+        Cart cart = loadOrCreateCart(userEmail);
+
+        Set<Long> productIds = new HashSet<>();
+        for (CartBatchRequest.Operation operation : operations) {
+            if (operation.type() == CartBatchRequest.Type.ADD) {
+                productIds.add(operation.getProductId());
+            }
+        }
+        cart.getItems().forEach(item -> productIds.add(item.getProduct().getId()));
+        Map<Long, Product> products = productRepository.findAllByIdIn(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        // Lines this batch added to or re-quantified; untouched lines keep whatever quantity they already had
+        Set<Long> touched = new HashSet<>();
+        for (CartBatchRequest.Operation operation : operations) {
+            switch (operation.type()) {
+                case ADD -> {
+                    Product product = products.get(operation.getProductId());
+                    if (product == null) {
+                        throw new IllegalArgumentException("Product not found: " + operation.getProductId());
+                    }
+                    cart.getItems().stream()
+                            .filter(item -> item.getProduct().getId().equals(product.getId()))
+                            .findFirst()
+                            .ifPresentOrElse(
+                                    item -> item.setQuantity(item.getQuantity() + operation.getQuantity()),
+                                    () -> {
+                                        CartItem newItem = new CartItem();
+                                        newItem.setProduct(product);
+                                        newItem.setQuantity(operation.getQuantity());
+                                        newItem.setCart(cart);
+                                        cart.getItems().add(newItem);
+                                    });
+                    touched.add(product.getId());
+                }
+                case UPDATE -> {
+                    CartItem item = cart.getItems().stream()
+                            .filter(candidate -> operation.getItemId().equals(candidate.getId()))
+                            .findFirst()
+                            .orElseThrow(() -> new IllegalArgumentException("Cart item not found: " + operation.getItemId()));
+                    item.setQuantity(operation.getQuantity());
+                    touched.add(item.getProduct().getId());
+                }
+                case REMOVE -> cart.getItems().removeIf(item -> operation.getItemId().equals(item.getId()));
+            }
+        }
+
+        // Checked on the resulting quantities, so the order of operations within the batch does not matter
+        for (CartItem item : cart.getItems()) {
+            if (!touched.contains(item.getProduct().getId())) {
+                continue;
+            }
+            Product product = products.getOrDefault(item.getProduct().getId(), item.getProduct());
+            if (item.getQuantity() > product.getStock()) {
+                throw new IllegalArgumentException("Requested quantity exceeds available stock for product " +
+                        product.getId());
+            }
+        }
+
+        cartRepository.flush();
+        return snapshot(cart);
+    }
+
+    static void validateBatch(List<CartBatchRequest.Operation> operations, int maxOperations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("No cart operations given");
+        }
+        if (operations.size() > maxOperations) {
+            throw new IllegalArgumentException("At most " + maxOperations + " cart operations can be applied at once");
+        }
+        for (CartBatchRequest.Operation operation : operations) {
+            switch (operation.type()) {
+                case ADD -> {
+                    if (operation.getProductId() == null) {
+                        throw new IllegalArgumentException("add needs a productId");
+                    }
+                    if (operation.getQuantity() == null) {
+                        operation.setQuantity(1);
+                    }
+                }
+                case UPDATE, REMOVE -> {
+                    if (operation.getItemId() == null) {
+                        throw new IllegalArgumentException(operation.getOp() + " needs an itemId");
+                    }
+                }
+            }
+            if (operation.type() != CartBatchRequest.Type.REMOVE
+                    && (operation.getQuantity() == null || operation.getQuantity() < 1)) {
+                throw new IllegalArgumentException("Quantity must be at least 1");
+            }
+        }
     }
 
     @Transactional
     public void clearCart(String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-        cartRepository.findByUserIdWithItems(user.getId())
+        cartRepository.findByUserIdWithItems(identityCache.userId(userEmail))
                 .ifPresent(cart -> {
                     cart.getItems().clear();
                     cartRepository.save(cart);
                 });
     }
-}
\ No newline at end of file
+
+    private CartSnapshot snapshot(Cart cart) {
+        List<CartLine> lines = cart.getItems().stream()
+                .sorted(Comparator.comparing(CartItem::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(item -> {
+                    Product product = item.getProduct();
+                    return new CartLine(item.getId(), product.getId(), product.getName(),
+                            product.getPrice(), item.getQuantity(), product.getStock());
+                })
+                .toList();
+        return snapshot(cart.getId(), lines);
+    }
+
+    // Copies what the cart page needs; primary images come from one reference query
+    private CartSnapshot snapshot(Long cartId, List<CartLine> lines) {
+        if (lines.isEmpty()) {
+            return CartSnapshot.empty(cartId);
+        }
+
+        List<Long> productIds = lines.stream().map(CartLine::productId).distinct().toList();
+        Map<Long, ProductImageDTO> primaryImages = new HashMap<>();
+        for (Object[] row : productImageRepository.findImageRefsByProductIds(productIds)) {
+            primaryImages.putIfAbsent((Long) row[0], new ProductImageDTO((Long) row[1], (DerivativeStatus) row[2]));
+        }
+
+        return new CartSnapshot(cartId, lines.stream()
+                .map(line -> new CartSnapshot.Item(line.itemId(), line.productId(), line.productName(),
+                        line.unitPrice(), line.quantity(), line.stock(), primaryImages.get(line.productId())))
+                .toList());
+    }
+}
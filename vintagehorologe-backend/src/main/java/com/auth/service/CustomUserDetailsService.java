@@ -19,6 +19,7 @@ public class CustomUserDetailsService implements UserDetailsService {
     private final UserRepository userRepository;
     private final ArtisanRepository artisanRepository;
     private final AdminRepository adminRepository;
+    private final IdentityCache identityCache;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
@@ -31,6 +32,7 @@ public class CustomUserDetailsService implements UserDetailsService {
         // Then check Artisan
         Artisan artisan = artisanRepository.findByEmail(email).orElse(null);
         if (artisan != null) {
+            identityCache.rememberArtisan(artisan.getEmail(), artisan.getId());
             return buildArtisanDetails(artisan);
         }
 
@@ -38,6 +40,8 @@ public class CustomUserDetailsService implements UserDetailsService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
 
+        // Every token authentication loads the account anyway, which keeps the identity cache warm
+        identityCache.rememberUser(user.getEmail(), user.getId());
         return buildUserDetails(user);
     }
 
@@ -1,33 +1,45 @@
 package com.auth.service;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.*;
-
-import java.util.UUID;
+import java.io.InputStream;
 
 @Service
+@RequiredArgsConstructor
 public class FileStorageService {
 
-    // For certificates,  stored in:
-    private static final String CERTIFICATE_UPLOAD_DIR = "uploads/certificates";
-
+    // Certificates share the content-addressed blob store with product images
+    private final ImageStorage imageStorage;
+    private final BlobReferenceService blobReferenceService;
 
-    // Existing method to store one certificate file
+    // Stores one certificate file and returns its storage key; call inside the
+    // transaction that saves the artisan so the reference commits with the row
     public String storeFile(MultipartFile file) throws IOException {
         if (file.isEmpty()) {
             throw new IOException("Failed to store empty file");
         }
-        Path uploadPath = Paths.get(CERTIFICATE_UPLOAD_DIR);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
+        String key;
+        try (InputStream in = file.getInputStream()) {
+            key = imageStorage.store(in).key();
+        } catch (IllegalArgumentException e) {
+            // The store rejects objects above image.storage.max-object-size
+            throw new IllegalArgumentException("Certificate file is too large", e);
+        }
+        blobReferenceService.track(key);
+        blobReferenceService.acquire(key);
+        return key;
+    }
+
+    // Certificates uploaded before the blob store keep their uploads/certificates/... path and
+    // are deliberately left in place: nothing serves them, and deleting them on replacement
+    // would lose the only copy of a document an admin may still need to review by hand
+    public void releaseFile(String certificatePath) {
+        if (certificatePath != null && certificatePath.length() == 64) {
+            blobReferenceService.release(certificatePath);
         }
-        String fileName = UUID.randomUUID() + "_" + file.getOriginalFilename();
-        Path filePath = uploadPath.resolve(fileName);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-        return filePath.toString();
     }
 
 }
@@ -0,0 +1,74 @@
+package com.auth.service;
+
+import com.auth.config.CacheConfig;
+import com.auth.repository.ArtisanRepository;
+import com.auth.repository.UserRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Maps an authenticated email to its user or artisan id, so request handlers no longer load the
+ * account row just to learn its id. Entries are written whenever {@link CustomUserDetailsService}
+ * loads an account while authenticating a token, fall back to a single id query, and are dropped
+ * after an email change commits. The identity cache's TTL bounds anything changed outside the app.
+ */
+@Service
+public class IdentityCache {
+    private static final String USER = "user:";
+    private static final String ARTISAN = "artisan:";
+
+    private final UserRepository userRepository;
+    private final ArtisanRepository artisanRepository;
+    private final Cache cache;
+
+    public IdentityCache(UserRepository userRepository,
+                         ArtisanRepository artisanRepository,
+                         CacheManager cacheManager) {
+        this.userRepository = userRepository;
+        this.artisanRepository = artisanRepository;
+        this.cache = cacheManager.getCache(CacheConfig.IDENTITY_CACHE);
+    }
+
+    public Long userId(String email) {
+        return resolve(USER + email, email, userRepository::findIdByEmail)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    }
+
+    public Optional<Long> artisanId(String email) {
+        return resolve(ARTISAN + email, email, artisanRepository::findIdByEmail);
+    }
+
+    public void rememberUser(String email, Long id) {
+        cache.put(USER + email, id);
+    }
+
+    public void rememberArtisan(String email, Long id) {
+        cache.put(ARTISAN + email, id);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onIdentityChanged(IdentityChangedEvent event) {
+        for (String email : event.emails()) {
+            cache.evict(USER + email);
+            cache.evict(ARTISAN + email);
+        }
+    }
+
+    // Unknown emails are not cached, so an account registered later is found straight away
+    private Optional<Long> resolve(String key, String email, Function<String, Optional<Long>> lookup) {
+        Long id = cache.get(key, Long.class);
+        if (id != null) {
+            return Optional.of(id);
+        }
+        Optional<Long> found = lookup.apply(email);
+        found.ifPresent(value -> cache.put(key, value));
+        return found;
+    }
+}
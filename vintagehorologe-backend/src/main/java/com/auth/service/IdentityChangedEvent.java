@@ -0,0 +1,7 @@
+package com.auth.service;
+
+import java.util.List;
+
+// Published when an account's email changes; cached identities for these addresses are dropped after commit
+public record IdentityChangedEvent(List<String> emails) {
+}
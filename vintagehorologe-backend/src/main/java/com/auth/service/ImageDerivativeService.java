@@ -0,0 +1,247 @@
+package com.auth.service;
+
+import com.auth.model.DerivativeStatus;
+import com.auth.model.ImageVariant;
+import com.auth.model.ProductImage;
+import com.auth.repository.ProductImageRepository;
+import com.auth.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Generates resized renditions (see {@link ImageVariant}) for stored product images on a
+ * bounded worker pool, so uploads never wait on image processing. Work that does not fit
+ * in the queue stays PENDING and is picked up by the periodic sweep.
+ */
+@Service
+public class ImageDerivativeService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageDerivativeService.class);
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final ProductImageRepository productImageRepository;
+    private final ProductRepository productRepository;
+    private final ImageStorage imageStorage;
+    private final BlobReferenceService blobReferenceService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ThreadPoolExecutor executor;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Value("${image.derivatives.sweep-batch-size:100}")
+    private int sweepBatchSize;
+
+    @Value("${image.derivatives.max-pixels:50000000}")
+    private long maxPixels;
+
+    public ImageDerivativeService(ProductImageRepository productImageRepository,
+                                  ProductRepository productRepository,
+                                  ImageStorage imageStorage,
+                                  BlobReferenceService blobReferenceService,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${image.derivatives.workers:2}") int workers,
+                                  @Value("${image.derivatives.queue-capacity:200}") int queueCapacity) {
+        this.productImageRepository = productImageRepository;
+        this.productRepository = productRepository;
+        this.imageStorage = imageStorage;
+        this.blobReferenceService = blobReferenceService;
+        this.eventPublisher = eventPublisher;
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-derivatives");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onImagesStored(ProductImagesStoredEvent event) {
+        event.imageIds().forEach(this::enqueue);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${image.derivatives.sweep-interval-ms:300000}",
+            initialDelayString = "${image.derivatives.sweep-interval-ms:300000}")
+    public void enqueuePending() {
+        List<Long> pending = productImageRepository.findIdsByDerivativeStatus(
+                DerivativeStatus.PENDING, PageRequest.of(0, sweepBatchSize));
+        pending.forEach(this::enqueue);
+    }
+
+    public boolean enqueue(Long imageId) {
+        if (!inFlight.add(imageId)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(imageId);
+                } finally {
+                    inFlight.remove(imageId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(imageId);
+            log.debug("Derivative queue full; image {} left pending", imageId);
+            return false;
+        }
+    }
+
+    void generate(Long imageId) {
+        ProductImage image = productImageRepository.findById(imageId).orElse(null);
+        if (image == null || image.getStorageKey() == null) {
+            return;
+        }
+        try {
+            BufferedImage original;
+            try (InputStream in = imageStorage.load(image.getStorageKey()).getInputStream()) {
+                original = decode(in);
+            }
+            if (original == null) {
+                // Format ImageIO cannot decode (e.g. WebP): keep serving the original
+                productImageRepository.updateDerivatives(imageId, null, null, null, DerivativeStatus.FAILED);
+                return;
+            }
+
+            boolean alpha = original.getColorModel().hasAlpha();
+            String format = alpha ? "png" : "jpeg";
+            String thumbnailKey = storeRendition(image, original, ImageVariant.THUMBNAIL, format);
+            String cardKey = storeRendition(image, original, ImageVariant.CARD, format);
+            Set<String> heldKeys = image.getReferencedKeys();
+            if (productImageRepository.updateDerivatives(imageId, thumbnailKey, cardKey,
+                    "image/" + format, DerivativeStatus.READY) == 1) {
+                image.setThumbnailKey(thumbnailKey);
+                image.setCardKey(cardKey);
+                image.getReferencedKeys().stream()
+                        .filter(key -> !heldKeys.contains(key))
+                        .forEach(blobReferenceService::acquire);
+            }
+            // Image status is part of the product representation, so cached copies must revalidate
+            productRepository.touchByImageId(imageId, LocalDateTime.now());
+            eventPublisher.publishEvent(ProductChangedEvent.of(image.getProduct().getId()));
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to generate renditions for image {}: {}", imageId, e.getMessage());
+            productImageRepository.updateDerivatives(imageId, null, null, null, DerivativeStatus.FAILED);
+        }
+    }
+
+    // Decodes at the smallest integer subsampling that still covers twice the largest rendition,
+    // so a 24-megapixel photo never becomes a full-size raster on the heap
+    private BufferedImage decode(InputStream in) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IOException("Image of " + width + "x" + height + " exceeds the pixel limit");
+                }
+                int subsampling = Math.max(1, Math.max(width, height) / (2 * ImageVariant.CARD.getMaxDimension()));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private String storeRendition(ProductImage image, BufferedImage original,
+                                  ImageVariant variant, String format) throws IOException {
+        int maxDimension = variant.getMaxDimension();
+        if (Math.max(original.getWidth(), original.getHeight()) <= maxDimension) {
+            // Already small enough: the rendition is the original itself
+            return image.getStorageKey();
+        }
+        BufferedImage resized = resize(original, maxDimension, "png".equals(format));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encode(resized, format, out);
+        String key = imageStorage.store(new ByteArrayInputStream(out.toByteArray())).key();
+        blobReferenceService.track(key);
+        return key;
+    }
+
+    private static BufferedImage resize(BufferedImage source, int maxDimension, boolean alpha) {
+        double scale = (double) maxDimension / Math.max(source.getWidth(), source.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        // Halve repeatedly before the final step; a single large bilinear step aliases badly
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(width / 2, targetWidth);
+            height = Math.max(height / 2, targetHeight);
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                        RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static void encode(BufferedImage image, String format, ByteArrayOutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpeg".equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,25 @@
+package com.auth.service;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Storage engine for product image bytes. Content is addressed by its SHA-256 hash,
+ * so the key returned by {@link #store} is stable for identical bytes and stored
+ * objects never change after they are written.
+ */
+public interface ImageStorage {
+
+    StoredImage store(InputStream content) throws IOException;
+
+    Resource load(String key) throws IOException;
+
+    boolean exists(String key);
+
+    void delete(String key) throws IOException;
+
+    record StoredImage(String key, long size) {
+    }
+}
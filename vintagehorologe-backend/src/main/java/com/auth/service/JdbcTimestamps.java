@@ -0,0 +1,30 @@
+package com.auth.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Binds the current time for plain JDBC writes to updated_at the same way Hibernate binds
+ * {@code @UpdateTimestamp} under {@code hibernate.jdbc.time_zone=UTC}: JVM clock, stored as UTC.
+ * Using the database's CURRENT_TIMESTAMP instead would mix in the session time zone.
+ */
+final class JdbcTimestamps {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private JdbcTimestamps() {
+    }
+
+    // For JdbcTemplate argument arrays; a Calendar bound as Types.TIMESTAMP is written in its own zone
+    static Calendar now() {
+        return Calendar.getInstance(UTC);
+    }
+
+    static void setNow(PreparedStatement ps, int index) throws SQLException {
+        Calendar now = now();
+        ps.setTimestamp(index, new Timestamp(now.getTimeInMillis()), now);
+    }
+}
@@ -0,0 +1,121 @@
+package com.auth.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+// Filesystem-backed image store: <root>/ab/cd/abcd... keeps directory fan-out bounded
+@Service
+@ConditionalOnProperty(name = "image.storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalImageStorage implements ImageStorage {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalImageStorage.class);
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+    private final Path tempDir;
+    private final int bufferSize;
+    private final long maxObjectSize;
+
+    public LocalImageStorage(@Value("${image.storage.local.root:uploads/images}") String root,
+                             @Value("${image.storage.buffer-size:64KB}") DataSize bufferSize,
+                             @Value("${image.storage.max-object-size:10MB}") DataSize maxObjectSize) throws IOException {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.tempDir = this.root.resolve("tmp");
+        this.bufferSize = (int) bufferSize.toBytes();
+        this.maxObjectSize = maxObjectSize.toBytes();
+        Files.createDirectories(tempDir);
+    }
+
+    @Override
+    public StoredImage store(InputStream content) throws IOException {
+        MessageDigest digest = newDigest();
+        Path temp = Files.createTempFile(tempDir, "upload-", ".part");
+        try {
+            long size = copy(content, digest, temp);
+            String key = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(key);
+            if (Files.exists(target)) {
+                // Identical bytes are already stored; objects are write-once
+                return new StoredImage(key, size);
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                log.debug("Image {} was stored concurrently", key);
+            }
+            return new StoredImage(key, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Hashes and writes through one fixed buffer, so heap use per upload does not depend on its size
+    private long copy(InputStream content, MessageDigest digest, Path target) throws IOException {
+        byte[] buffer = new byte[bufferSize];
+        long size = 0;
+        try (OutputStream out = Files.newOutputStream(target, StandardOpenOption.TRUNCATE_EXISTING)) {
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                size += read;
+                if (size > maxObjectSize) {
+                    throw new IllegalArgumentException("Image is larger than " + maxObjectSize + " bytes");
+                }
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            content.close();
+        }
+        return size;
+    }
+
+    @Override
+    public Resource load(String key) throws IOException {
+        Path path = resolve(key);
+        if (!Files.isRegularFile(path)) {
+            throw new NoSuchFileException("Image not found: " + key);
+        }
+        return new FileSystemResource(path);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return KEY_PATTERN.matcher(key).matches() && Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    private Path resolve(String key) {
+        if (!KEY_PATTERN.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid image key: " + key);
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
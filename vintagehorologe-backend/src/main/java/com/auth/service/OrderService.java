@@ -1,5 +1,6 @@
 package com.auth.service;
 
+import com.auth.dto.CartLine;
 import com.auth.dto.CheckoutRequest;
 
 
@@ -11,11 +12,13 @@ import com.razorpay.RazorpayException;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,23 +26,29 @@ import java.util.stream.Collectors;
 public class OrderService {
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
+    private final IdentityCache identityCache;
     private final ProductRepository productRepository;
     private final CachedCartService cachedCartService;
+    private final StockService stockService;
+    private final UserLocks userLocks;
     private final RazorpayService razorpayService;
+    private final ApplicationEventPublisher eventPublisher;
     private static final Logger log = LoggerFactory.getLogger(OrderService.class);
 
     @Transactional
     public Order processCheckout(String userEmail, CheckoutRequest request) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        // Cart changes from other tabs wait until this checkout has committed
+        userLocks.lockUntilCompletion(userEmail);
+        User user = userRepository.getReferenceById(identityCache.userId(userEmail));
 
-        Cart cart = cachedCartService.getCart(userEmail);
+        // Priced from current product rows rather than a possibly older cached snapshot
+        List<CartLine> cart = cachedCartService.getCheckoutLines(userEmail);
 
-        if (cart == null || cart.getItems().isEmpty()) {
+        if (cart.isEmpty()) {
             throw new RuntimeException("Cart is empty");
         }
 
-        Double totalAmount = calculateTotal(cart);
+        Double totalAmount = cart.stream().mapToDouble(CartLine::lineTotal).sum();
 
         try {
             String receiptId = "order_rcptid_" + System.currentTimeMillis();
@@ -62,13 +71,11 @@ public class OrderService {
 
     @Transactional
     public Order confirmPayment(String paymentId, String orderId, String signature, String email) {
+        userLocks.lockUntilCompletion(email);
         Order order = orderRepository.findByRazorpayOrderId(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found for ID: " + orderId));
 
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        if (!order.getUser().getId().equals(user.getId())) {
+        if (!order.getUser().getId().equals(identityCache.userId(email))) {
             log.warn("Unauthorized payment confirmation attempt for order {}", orderId);
             throw new SecurityException("Unauthorized payment confirmation attempt");
         }
@@ -82,22 +89,17 @@ public class OrderService {
         order.setRazorpayPaymentId(paymentId);
         order.setPaymentStatus("PAID");
 
-        // Reduce stock for each product
-        for (OrderItem item : order.getItems()) {
-            Product product = item.getProduct();
-            int newStock = product.getStock() - item.getQuantity();
-            if (newStock < 0) {
-                throw new RuntimeException("Insufficient stock for product: " + product.getName());
-            }
-            product.setStock(newStock);
-            productRepository.save(product);
-        }
+        // Checked and applied by the database in one batch; a shortfall rolls the confirmation back
+        Map<Long, Integer> quantities = order.getItems().stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), OrderItem::getQuantity, Integer::sum));
+        stockService.decrement(quantities);
+        eventPublisher.publishEvent(new ProductChangedEvent(quantities.keySet()));
 
         cachedCartService.clearCart(email);
         return orderRepository.save(order);
     }
 
-    private Order createOrder(User user, CheckoutRequest request, Cart cart, Double totalAmount) {
+    private Order createOrder(User user, CheckoutRequest request, List<CartLine> cart, Double totalAmount) {
         Order order = Order.builder()
                 .user(user)
                 .deliveryAddress(request.getDeliveryAddress())
@@ -115,20 +117,15 @@ public class OrderService {
         return order;
     }
 
-    private List<OrderItem> convertCartItems(Cart cart, Order order) {
-        return cart.getItems().stream().map(cartItem ->
+    // Order lines only need the product's key, so a reference stands in for loading the row
+    private List<OrderItem> convertCartItems(List<CartLine> cart, Order order) {
+        return cart.stream().map(cartItem ->
                 OrderItem.builder()
-                        .product(cartItem.getProduct())
-                        .quantity(cartItem.getQuantity())
-                        .price(cartItem.getProduct().getPrice())
+                        .product(productRepository.getReferenceById(cartItem.productId()))
+                        .quantity(cartItem.quantity())
+                        .price(cartItem.unitPrice())
                         .order(order)
                         .build()
         ).collect(Collectors.toList());
     }
-
-    private Double calculateTotal(Cart cart) {
-        return cart.getItems().stream()
-                .mapToDouble(item -> item.getProduct().getPrice() * item.getQuantity())
-                .sum();
-    }
 }
\ No newline at end of file
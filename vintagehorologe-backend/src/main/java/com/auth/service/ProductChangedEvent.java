@@ -0,0 +1,12 @@
+package com.auth.service;
+
+import java.util.Collection;
+import java.util.List;
+
+// Published whenever a product's stored representation changes; read models refresh after commit
+public record ProductChangedEvent(Collection<Long> productIds) {
+
+    public static ProductChangedEvent of(Long productId) {
+        return new ProductChangedEvent(List.of(productId));
+    }
+}
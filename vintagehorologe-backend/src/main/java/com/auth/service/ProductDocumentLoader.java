@@ -0,0 +1,77 @@
+package com.auth.service;
+
+import com.auth.dto.ProductDocument;
+import com.auth.model.Product;
+import com.auth.repository.ProductImageRepository;
+import com.auth.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Feeds the in-memory catalog indexes; walks active products in keyset batches without touching image data
+@Component
+@RequiredArgsConstructor
+public class ProductDocumentLoader {
+    private final ProductRepository productRepository;
+    private final ProductImageRepository productImageRepository;
+
+    @Value("${catalog.index.load-batch-size:1000}")
+    private int batchSize;
+
+    public void forEachActive(Consumer<ProductDocument> consumer) {
+        LocalDateTime afterCreatedAt = null;
+        Long afterId = null;
+        while (true) {
+            List<Product> batch = productRepository.findCatalogPage(
+                    null, afterCreatedAt, afterId, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return;
+            }
+            Map<Long, Long> primaryImages = findPrimaryImageIds(batch);
+            batch.forEach(product -> consumer.accept(
+                    ProductDocument.of(product, primaryImages.get(product.getId()))));
+
+            Product last = batch.get(batch.size() - 1);
+            afterCreatedAt = last.getCreatedAt();
+            afterId = last.getId();
+        }
+    }
+
+    // Two queries per batch of ids; products that no longer exist or have been soft-deleted are absent
+    public Map<Long, ProductDocument> findActive(Collection<Long> productIds) {
+        Map<Long, ProductDocument> documents = new HashMap<>();
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(productIds));
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Product> batch = productRepository.findActiveWithArtisanByIds(
+                    ids.subList(from, Math.min(from + batchSize, ids.size())));
+            if (batch.isEmpty()) {
+                continue;
+            }
+            Map<Long, Long> primaryImages = findPrimaryImageIds(batch);
+            batch.forEach(product -> documents.put(product.getId(),
+                    ProductDocument.of(product, primaryImages.get(product.getId()))));
+        }
+        return documents;
+    }
+
+    private Map<Long, Long> findPrimaryImageIds(List<Product> products) {
+        Map<Long, Long> primaryImages = new HashMap<>();
+        List<Long> productIds = products.stream().map(Product::getId).collect(Collectors.toList());
+        // Rows are ordered by image id, so the first one per product is its primary image
+        for (Object[] row : productImageRepository.findImageRefsByProductIds(productIds)) {
+            primaryImages.putIfAbsent((Long) row[0], (Long) row[1]);
+        }
+        return primaryImages;
+    }
+}
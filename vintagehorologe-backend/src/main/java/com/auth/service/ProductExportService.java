@@ -0,0 +1,100 @@
+package com.auth.service;
+
+import com.auth.dto.ProductDTO;
+import com.auth.dto.ProductImageDTO;
+import com.auth.model.Product;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes the active catalog as newline-delimited JSON while reading it. Products are pulled
+ * from a forward-only result stream, their image references looked up one chunk at a time,
+ * and each entity is detached once written, so memory stays flat however large the catalog.
+ */
+@Service
+public class ProductExportService {
+
+    private final ProductServiceImpl productService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate imageLookup;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${catalog.export.chunk-size:200}")
+    private int chunkSize;
+
+    // Integer.MIN_VALUE makes MySQL Connector/J stream the rows of this one statement
+    @Value("${catalog.export.fetch-size:-2147483648}")
+    private int fetchSize;
+
+    public ProductExportService(ProductServiceImpl productService,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager) {
+        this.productService = productService;
+        this.objectMapper = objectMapper;
+        this.imageLookup = new TransactionTemplate(transactionManager);
+        this.imageLookup.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.imageLookup.setReadOnly(true);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportActive(OutputStream out) throws IOException {
+        try (Stream<Product> products = streamActiveWithArtisan();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            Iterator<Product> iterator = products.iterator();
+            List<Product> chunk = new ArrayList<>(chunkSize);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == chunkSize) {
+                    writeChunk(generator, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(generator, chunk);
+            }
+        }
+    }
+
+    private Stream<Product> streamActiveWithArtisan() {
+        return entityManager.createQuery("SELECT p FROM Product p LEFT JOIN FETCH p.artisan " +
+                        "WHERE p.active = true ORDER BY p.id", Product.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private void writeChunk(JsonGenerator generator, List<Product> chunk) throws IOException {
+        // A streaming result holds its connection until fully read, so the lookup runs on another one
+        Map<Long, List<ProductImageDTO>> images = imageLookup.execute(status -> productService.findImageRefs(chunk));
+        for (Product product : chunk) {
+            objectMapper.writeValue(generator, new ProductDTO(product, images.getOrDefault(product.getId(), List.of())));
+            generator.writeRaw('\n');
+            entityManager.detach(product);
+            if (product.getArtisan() != null) {
+                entityManager.detach(product.getArtisan());
+            }
+        }
+        // Push each chunk to the client as soon as it is written
+        generator.flush();
+    }
+}
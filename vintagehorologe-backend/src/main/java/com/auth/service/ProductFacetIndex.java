@@ -0,0 +1,317 @@
+package com.auth.service;
+
+import com.auth.dto.FacetedProductPage;
+import com.auth.dto.ProductDocument;
+import com.auth.dto.ProductSummaryDTO;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmap index over active products: every product gets an ordinal and every facet value a
+ * {@link BitSet} of the ordinals carrying it. Filters are OR within a facet and AND across
+ * facets; counts for a facet are computed against the other facets' filters so shoppers can
+ * still see alternatives to what they already selected. Ordinals are assigned in product id
+ * order at build time and appended afterwards, so walking the result bitmap from the top
+ * lists the newest products first; a product that turns up with an id below the newest one
+ * (an inactive product being reactivated) makes the live documents be re-laid out in id order.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductFacetIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductFacetIndex.class);
+
+    public static final String CATEGORY = "category";
+    public static final String PRICE_BAND = "priceBand";
+    public static final String MATERIAL = "material";
+    public static final String ETHICAL_SCORE = "ethicalScore";
+    public static final String IN_STOCK = "inStock";
+    public static final List<String> FACETS = List.of(CATEGORY, PRICE_BAND, MATERIAL, ETHICAL_SCORE, IN_STOCK);
+
+    // Upper bounds (exclusive) of the price bands; anything above the last one falls in the open band
+    private static final double[] PRICE_BOUNDS = {100, 250, 500, 1000, 2500};
+
+    private final ProductDocumentLoader documentLoader;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+
+    private volatile boolean rebuilding;
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    private static class State {
+        final Map<Long, Integer> ordinals = new HashMap<>();
+        final List<ProductDocument> documents = new ArrayList<>();
+        final BitSet live = new BitSet();
+        final Map<String, Map<String, BitSet>> bitmaps = new HashMap<>();
+
+        State() {
+            FACETS.forEach(facet -> bitmaps.put(facet, new TreeMap<>()));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuilding = true;
+        changedDuringRebuild.clear();
+        try {
+            List<ProductDocument> loaded = new ArrayList<>();
+            documentLoader.forEachActive(loaded::add);
+            loaded.sort(Comparator.comparing(ProductDocument::id));
+
+            State newState = new State();
+            loaded.forEach(document -> add(newState, document));
+
+            lock.writeLock().lock();
+            try {
+                state = newState;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Facet index built with {} products", loaded.size());
+        } finally {
+            rebuilding = false;
+        }
+        refresh(new ArrayList<>(changedDuringRebuild));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (rebuilding) {
+            changedDuringRebuild.addAll(event.productIds());
+        }
+        refresh(event.productIds());
+    }
+
+    private void refresh(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Map<Long, ProductDocument> documents = documentLoader.findActive(productIds);
+        lock.writeLock().lock();
+        try {
+            boolean outOfOrder = false;
+            for (Long productId : productIds) {
+                remove(state, productId);
+                ProductDocument document = documents.get(productId);
+                if (document == null) {
+                    continue;
+                }
+                if (!state.ordinals.containsKey(productId) && !state.documents.isEmpty()
+                        && productId < state.documents.get(state.documents.size() - 1).id()) {
+                    outOfOrder = true;
+                }
+                add(state, document);
+            }
+            if (outOfOrder) {
+                state = relayout(state);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Rebuilds the bitmaps from the live documents so ordinals are sorted by id again
+    private static State relayout(State current) {
+        State newState = new State();
+        current.live.stream()
+                .mapToObj(current.documents::get)
+                .sorted(Comparator.comparing(ProductDocument::id))
+                .forEach(document -> add(newState, document));
+        return newState;
+    }
+
+    public FacetedProductPage query(Map<String, Set<String>> selections, String cursor, int size) {
+        for (String facet : selections.keySet()) {
+            if (!FACETS.contains(facet)) {
+                throw new IllegalArgumentException("Unknown facet: " + facet);
+            }
+        }
+        Long afterId = cursor != null ? parseCursor(cursor) : null;
+
+        lock.readLock().lock();
+        try {
+            Map<String, BitSet> facetFilters = new HashMap<>();
+            selections.forEach((facet, values) -> {
+                if (!values.isEmpty()) {
+                    facetFilters.put(facet, union(state.bitmaps.get(facet), normalize(facet, values)));
+                }
+            });
+
+            BitSet matches = intersect(facetFilters, null);
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            for (String facet : FACETS) {
+                // A facet's own selection is left out of its counts
+                BitSet others = facetFilters.containsKey(facet) ? intersect(facetFilters, facet) : matches;
+                Map<String, Integer> valueCounts = new LinkedHashMap<>();
+                state.bitmaps.get(facet).forEach((value, bitmap) -> {
+                    BitSet hits = (BitSet) bitmap.clone();
+                    hits.and(others);
+                    int count = hits.cardinality();
+                    if (count > 0) {
+                        valueCounts.put(value, count);
+                    }
+                });
+                counts.put(facet, valueCounts);
+            }
+
+            int from = afterId != null ? startAfter(afterId) : matches.length() - 1;
+            List<ProductSummaryDTO> items = new ArrayList<>(size);
+            int ordinal = from >= 0 ? matches.previousSetBit(from) : -1;
+            while (ordinal >= 0 && items.size() < size) {
+                items.add(new ProductSummaryDTO(state.documents.get(ordinal)));
+                ordinal = ordinal > 0 ? matches.previousSetBit(ordinal - 1) : -1;
+            }
+            boolean hasMore = ordinal >= 0;
+            String nextCursor = hasMore ? KeysetCursor.encode(items.get(items.size() - 1).getId()) : null;
+            return new FacetedProductPage(items, nextCursor, hasMore, matches.cardinality(), counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int startAfter(Long afterId) {
+        Integer ordinal = state.ordinals.get(afterId);
+        return ordinal != null ? ordinal - 1 : startBelow(afterId);
+    }
+
+    // Highest ordinal whose product id is below afterId, for cursors issued before a rebuild
+    private int startBelow(Long afterId) {
+        int low = 0;
+        int high = state.documents.size() - 1;
+        int result = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (state.documents.get(mid).id() < afterId) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    private BitSet intersect(Map<String, BitSet> facetFilters, String excludedFacet) {
+        BitSet result = (BitSet) state.live.clone();
+        facetFilters.forEach((facet, filter) -> {
+            if (!facet.equals(excludedFacet)) {
+                result.and(filter);
+            }
+        });
+        return result;
+    }
+
+    private static BitSet union(Map<String, BitSet> valueBitmaps, Set<String> values) {
+        BitSet result = new BitSet();
+        for (String value : values) {
+            BitSet bitmap = valueBitmaps.get(value);
+            if (bitmap != null) {
+                result.or(bitmap);
+            }
+        }
+        return result;
+    }
+
+    private static void add(State state, ProductDocument document) {
+        // Known products keep their ordinal; new ones are appended
+        int ordinal = state.ordinals.computeIfAbsent(document.id(), id -> state.documents.size());
+        if (ordinal == state.documents.size()) {
+            state.documents.add(document);
+        } else {
+            state.documents.set(ordinal, document);
+        }
+        state.live.set(ordinal);
+        for (Map.Entry<String, Set<String>> entry : facetValues(document).entrySet()) {
+            Map<String, BitSet> valueBitmaps = state.bitmaps.get(entry.getKey());
+            for (String value : entry.getValue()) {
+                valueBitmaps.computeIfAbsent(value, v -> new BitSet()).set(ordinal);
+            }
+        }
+    }
+
+    // Clears the product's bits but keeps its ordinal (and document slot) so ordinals stay sorted by id
+    private static void remove(State state, Long productId) {
+        Integer ordinal = state.ordinals.get(productId);
+        if (ordinal == null || !state.live.get(ordinal)) {
+            return;
+        }
+        state.live.clear(ordinal);
+        for (Map.Entry<String, Set<String>> entry : facetValues(state.documents.get(ordinal)).entrySet()) {
+            Map<String, BitSet> valueBitmaps = state.bitmaps.get(entry.getKey());
+            for (String value : entry.getValue()) {
+                BitSet bitmap = valueBitmaps.get(value);
+                if (bitmap != null) {
+                    bitmap.clear(ordinal);
+                    if (bitmap.isEmpty()) {
+                        valueBitmaps.remove(value);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Map<String, Set<String>> facetValues(ProductDocument document) {
+        Map<String, Set<String>> values = new HashMap<>();
+        if (document.category() != null && !document.category().isBlank()) {
+            values.put(CATEGORY, Set.of(document.category().trim()));
+        }
+        if (document.price() != null) {
+            values.put(PRICE_BAND, Set.of(priceBand(document.price())));
+        }
+        if (document.materials() != null) {
+            Set<String> materials = new HashSet<>();
+            for (String material : document.materials().split(",")) {
+                if (!material.isBlank()) {
+                    materials.add(material.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+            values.put(MATERIAL, materials);
+        }
+        if (document.ethicalScore() != null) {
+            values.put(ETHICAL_SCORE, Set.of(String.valueOf((int) Math.floor(document.ethicalScore()))));
+        }
+        values.put(IN_STOCK, Set.of(String.valueOf(document.stock() != null && document.stock() > 0)));
+        return values;
+    }
+
+    // Selections are matched the way values were indexed: materials are stored lowercased
+    private static Set<String> normalize(String facet, Set<String> values) {
+        Set<String> normalized = new HashSet<>();
+        for (String value : values) {
+            String trimmed = value.trim();
+            normalized.add(MATERIAL.equals(facet) ? trimmed.toLowerCase(Locale.ROOT) : trimmed);
+        }
+        return normalized;
+    }
+
+    static String priceBand(double price) {
+        double lower = 0;
+        for (double upper : PRICE_BOUNDS) {
+            if (price < upper) {
+                return (int) lower + "-" + (int) upper;
+            }
+            lower = upper;
+        }
+        return (int) lower + "+";
+    }
+
+    private static Long parseCursor(String cursor) {
+        try {
+            return Long.valueOf(KeysetCursor.decode(cursor, 1)[0]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.auth.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Moves image bytes from the legacy product_image.image_data LONGBLOB column into
+ * {@link ImageStorage}. Runs in batches once the application is ready, and can also
+ * migrate a single image on demand when it is requested before the drain reaches it.
+ */
+@Component
+public class ProductImageMigrationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImageMigrationJob.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ImageStorage imageStorage;
+    private final BlobReferenceService blobReferenceService;
+
+    @Value("${image.storage.migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${image.storage.migration.batch-size:20}")
+    private int batchSize;
+
+    private volatile Boolean legacyColumnPresent;
+
+    public ProductImageMigrationJob(JdbcTemplate jdbcTemplate, ImageStorage imageStorage,
+                                    BlobReferenceService blobReferenceService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.imageStorage = imageStorage;
+        this.blobReferenceService = blobReferenceService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void drainOnStartup() {
+        if (!enabled || !hasLegacyColumn()) {
+            return;
+        }
+        int migrated = 0;
+        List<Long> failed = new ArrayList<>();
+        // Keyset over ids, so an image that fails is skipped instead of being selected again
+        long afterId = 0;
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM product_image WHERE id > ? AND storage_key IS NULL AND image_data IS NOT NULL " +
+                            "ORDER BY id LIMIT ?",
+                    Long.class, afterId, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            for (Long id : ids) {
+                afterId = id;
+                try {
+                    // Null when the image was migrated on demand after this batch was selected
+                    if (migrate(id) != null) {
+                        migrated++;
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Failed to migrate image {}: {}", id, e.getMessage());
+                    failed.add(id);
+                }
+            }
+        }
+        if (!failed.isEmpty()) {
+            log.warn("Skipped {} product images that could not be migrated: {}", failed.size(), failed);
+        } else if (migrated > 0) {
+            log.info("Migrated {} product images out of the database; image_data can now be dropped", migrated);
+        }
+    }
+
+    public Optional<String> migrateImage(Long imageId) {
+        if (!hasLegacyColumn()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(migrate(imageId));
+        } catch (RuntimeException e) {
+            log.error("Failed to migrate image {}: {}", imageId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // Returns the storage key, or null when the row has no legacy bytes left
+    private String migrate(Long imageId) {
+        List<ImageStorage.StoredImage> stored = jdbcTemplate.query(
+                "SELECT image_data FROM product_image WHERE id = ? AND image_data IS NOT NULL",
+                (ResultSet rs, int rowNum) -> {
+                    try (InputStream in = rs.getBinaryStream("image_data")) {
+                        return imageStorage.store(in);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                },
+                imageId);
+        if (stored.isEmpty()) {
+            return null;
+        }
+        ImageStorage.StoredImage image = stored.get(0);
+        blobReferenceService.track(image.key());
+        int updated = jdbcTemplate.update(
+                "UPDATE product_image SET storage_key = ?, content_length = ?, image_data = NULL " +
+                        "WHERE id = ? AND storage_key IS NULL",
+                image.key(), image.size(), imageId);
+        if (updated == 1) {
+            blobReferenceService.acquire(image.key());
+        }
+        return image.key();
+    }
+
+    private boolean hasLegacyColumn() {
+        if (legacyColumnPresent == null) {
+            legacyColumnPresent = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+                try (ResultSet columns = connection.getMetaData()
+                        .getColumns(connection.getCatalog(), null, "product_image", "image_data")) {
+                    return columns.next();
+                }
+            });
+        }
+        return Boolean.TRUE.equals(legacyColumnPresent);
+    }
+}
@@ -0,0 +1,7 @@
+package com.auth.service;
+
+import java.util.List;
+
+// Published when new product images are persisted; renditions are generated after commit
+public record ProductImagesStoredEvent(List<Long> imageIds) {
+}
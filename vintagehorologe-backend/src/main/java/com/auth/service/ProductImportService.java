@@ -0,0 +1,444 @@
+package com.auth.service;
+
+import com.auth.dto.ProductImportReport;
+import com.auth.dto.ProductImportReport.RowResult;
+import com.auth.dto.ProductImportRow;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.*;
+
+/**
+ * Bulk product import for artisans. Input is parsed one row at a time, valid rows are
+ * collected into chunks, and each chunk is written with batched JDBC inserts in its own
+ * transaction; a failing chunk does not undo the ones before it. Every input row gets a
+ * result in the returned report.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    public enum Format {
+        CSV, NDJSON;
+
+        // Explicit format parameter first, then the uploaded file's extension
+        public static Format detect(String param, String filename) {
+            if (param != null && !param.isBlank()) {
+                try {
+                    return valueOf(param.trim().toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown import format: " + param);
+                }
+            }
+            String name = filename != null ? filename.toLowerCase(Locale.ROOT) : "";
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+                return NDJSON;
+            }
+            throw new IllegalArgumentException("Specify format=csv or format=ndjson");
+        }
+    }
+
+    private static final String INSERT_PRODUCT = "INSERT INTO product (name, description, category, price, stock, " +
+            "materials, ethical_score, artisan_id, active, created_at, updated_at, review_count, rating_sum, " +
+            "rating_1_count, rating_2_count, rating_3_count, rating_4_count, rating_5_count) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, TRUE, ?, ?, 0, 0, 0, 0, 0, 0, 0)";
+
+    private static final String INSERT_IMAGE = "INSERT INTO product_image " +
+            "(product_id, storage_key, content_length, image_type, derivative_status) VALUES (?, ?, ?, ?, 'PENDING')";
+
+    // VARCHAR(255) columns of the product table
+    private static final int MAX_COLUMN_LENGTH = 255;
+    private static final double MIN_ETHICAL_SCORE = 1;
+    private static final double MAX_ETHICAL_SCORE = 5;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ImageStorage imageStorage;
+    private final BlobReferenceService blobReferenceService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${catalog.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${catalog.import.max-rows:10000}")
+    private int maxRows;
+
+    public ProductImportService(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                ImageStorage imageStorage,
+                                BlobReferenceService blobReferenceService,
+                                ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.imageStorage = imageStorage;
+        this.blobReferenceService = blobReferenceService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    private interface RowSource {
+        // Returns null at end of input
+        ParsedRow next() throws IOException;
+    }
+
+    private record ParsedRow(int line, ProductImportRow row, String error) {
+    }
+
+    private record PendingRow(int line, ProductImportRow row, List<ImageRef> images) {
+    }
+
+    private record ImageRef(String key, long size, String contentType) {
+    }
+
+    public ProductImportReport importProducts(Long artisanId, InputStream input, Format format) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        skipByteOrderMark(reader);
+        RowSource source = format == Format.CSV ? csvSource(reader) : ndjsonSource(reader);
+
+        List<RowResult> results = new ArrayList<>();
+        List<PendingRow> chunk = new ArrayList<>(batchSize);
+        Map<String, ImageRef> probedImages = new HashMap<>();
+        int rows = 0;
+        int lastLine = 0;
+        while (true) {
+            ParsedRow parsed;
+            try {
+                parsed = source.next();
+            } catch (IOException e) {
+                // Earlier chunks are already committed, so the client still needs the report for them
+                results.add(new RowResult(lastLine + 1, false, null, "Could not read input: " + e.getMessage()));
+                break;
+            }
+            if (parsed == null) {
+                break;
+            }
+            lastLine = parsed.line();
+            if (++rows > maxRows) {
+                results.add(new RowResult(parsed.line(), false, null,
+                        "Row limit of " + maxRows + " reached; remaining rows were not imported"));
+                break;
+            }
+            String error = parsed.error() != null ? parsed.error() : validate(parsed.row());
+            List<ImageRef> images = new ArrayList<>();
+            if (error == null) {
+                error = resolveImages(parsed.row(), probedImages, images);
+            }
+            if (error != null) {
+                results.add(new RowResult(parsed.line(), false, null, error));
+                continue;
+            }
+            chunk.add(new PendingRow(parsed.line(), parsed.row(), images));
+            if (chunk.size() == batchSize) {
+                results.addAll(insertChunk(artisanId, chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(insertChunk(artisanId, chunk));
+        }
+
+        results.sort(Comparator.comparingInt(RowResult::getRow));
+        int imported = (int) results.stream().filter(RowResult::isSuccess).count();
+        log.info("Bulk import for artisan {}: {} imported, {} failed", artisanId, imported, results.size() - imported);
+        return new ProductImportReport(results.size(), imported, results.size() - imported, results);
+    }
+
+    private List<RowResult> insertChunk(Long artisanId, List<PendingRow> chunk) {
+        try {
+            return transactionTemplate.execute(status -> {
+                List<Long> productIds = insertProducts(artisanId, chunk);
+                List<Long> imageIds = insertImages(chunk, productIds);
+                chunk.forEach(row -> row.images().forEach(image -> blobReferenceService.acquire(image.key())));
+                // Both are after-commit listeners, so indexes and renditions only see committed rows
+                eventPublisher.publishEvent(new ProductChangedEvent(productIds));
+                if (!imageIds.isEmpty()) {
+                    eventPublisher.publishEvent(new ProductImagesStoredEvent(imageIds));
+                }
+                List<RowResult> results = new ArrayList<>(chunk.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    results.add(new RowResult(chunk.get(i).line(), true, productIds.get(i), null));
+                }
+                return results;
+            });
+        } catch (DataAccessException | IllegalStateException e) {
+            if (chunk.size() == 1) {
+                log.warn("Bulk import row {} could not be saved: {}", chunk.get(0).line(), e.getMessage());
+                return List.of(new RowResult(chunk.get(0).line(), false, null, "Could not be saved"));
+            }
+            // Retry one row per transaction so only the rows the database rejects fail
+            log.warn("Bulk import chunk failed, retrying its {} rows one by one: {}", chunk.size(), e.getMessage());
+            List<RowResult> results = new ArrayList<>(chunk.size());
+            for (PendingRow row : chunk) {
+                results.addAll(insertChunk(artisanId, List.of(row)));
+            }
+            return results;
+        }
+    }
+
+    private List<Long> insertProducts(Long artisanId, List<PendingRow> chunk) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_PRODUCT, Statement.RETURN_GENERATED_KEYS)) {
+                for (PendingRow pending : chunk) {
+                    ProductImportRow row = pending.row();
+                    ps.setString(1, row.getName().trim());
+                    ps.setString(2, row.getDescription());
+                    ps.setString(3, trimToNull(row.getCategory()));
+                    ps.setDouble(4, row.getPrice());
+                    ps.setInt(5, row.getStock());
+                    ps.setString(6, trimToNull(row.getMaterials()));
+                    if (row.getEthicalScore() != null) {
+                        ps.setDouble(7, row.getEthicalScore());
+                    } else {
+                        ps.setNull(7, Types.DOUBLE);
+                    }
+                    ps.setLong(8, artisanId);
+                    JdbcTimestamps.setNow(ps, 9);
+                    JdbcTimestamps.setNow(ps, 10);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                return generatedKeys(ps, chunk.size());
+            }
+        });
+    }
+
+    private List<Long> insertImages(List<PendingRow> chunk, List<Long> productIds) {
+        int imageCount = chunk.stream().mapToInt(row -> row.images().size()).sum();
+        if (imageCount == 0) {
+            return List.of();
+        }
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_IMAGE, Statement.RETURN_GENERATED_KEYS)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    for (ImageRef image : chunk.get(i).images()) {
+                        ps.setLong(1, productIds.get(i));
+                        ps.setString(2, image.key());
+                        ps.setLong(3, image.size());
+                        ps.setString(4, image.contentType());
+                        ps.addBatch();
+                    }
+                }
+                ps.executeBatch();
+                return generatedKeys(ps, imageCount);
+            }
+        });
+    }
+
+    private static List<Long> generatedKeys(PreparedStatement ps, int expected) throws SQLException {
+        List<Long> keys = new ArrayList<>(expected);
+        try (ResultSet rs = ps.getGeneratedKeys()) {
+            while (rs.next()) {
+                keys.add(rs.getLong(1));
+            }
+        }
+        if (keys.size() != expected) {
+            throw new IllegalStateException("Expected " + expected + " generated keys but got " + keys.size());
+        }
+        return keys;
+    }
+
+    private static String validate(ProductImportRow row) {
+        if (row.getName() == null || row.getName().isBlank()) {
+            return "name is required";
+        }
+        String tooLong = tooLong("name", row.getName());
+        if (tooLong == null) {
+            tooLong = tooLong("category", row.getCategory());
+        }
+        if (tooLong == null) {
+            tooLong = tooLong("materials", row.getMaterials());
+        }
+        if (tooLong != null) {
+            return tooLong;
+        }
+        if (row.getPrice() == null || row.getPrice() < 0 || !Double.isFinite(row.getPrice())) {
+            return "price must be zero or more";
+        }
+        if (row.getStock() == null || row.getStock() < 0) {
+            return "stock must be zero or more";
+        }
+        if (row.getEthicalScore() != null && !(row.getEthicalScore() >= MIN_ETHICAL_SCORE
+                && row.getEthicalScore() <= MAX_ETHICAL_SCORE)) {
+            return "ethicalScore must be between 1 and 5";
+        }
+        return null;
+    }
+
+    // Lengths are checked on the trimmed value that insertProducts writes
+    private static String tooLong(String column, String value) {
+        return value != null && value.trim().length() > MAX_COLUMN_LENGTH ?
+                column + " is longer than " + MAX_COLUMN_LENGTH + " characters" :
+                null;
+    }
+
+    // Image keys must name blobs that are already in storage; each key is probed once per import
+    private String resolveImages(ProductImportRow row, Map<String, ImageRef> probed, List<ImageRef> images) {
+        if (row.getImageKeys() == null) {
+            return null;
+        }
+        for (String rawKey : row.getImageKeys()) {
+            String key = rawKey == null ? "" : rawKey.trim().toLowerCase(Locale.ROOT);
+            if (key.isEmpty()) {
+                continue;
+            }
+            ImageRef image = probed.computeIfAbsent(key, this::probeImage);
+            if (image == null) {
+                return "Unknown image key: " + key;
+            }
+            images.add(image);
+        }
+        return null;
+    }
+
+    private ImageRef probeImage(String key) {
+        try {
+            if (!imageStorage.exists(key)) {
+                return null;
+            }
+            Resource resource = imageStorage.load(key);
+            try (InputStream in = new BufferedInputStream(resource.getInputStream())) {
+                String contentType = URLConnection.guessContentTypeFromStream(in);
+                return contentType != null && contentType.startsWith("image/") ?
+                        new ImageRef(key, resource.contentLength(), contentType) :
+                        null;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private RowSource csvSource(BufferedReader reader) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header;
+        try {
+            header = csv.next();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed CSV header: " + e.getMessage());
+        }
+        if (header == null) {
+            return () -> null;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("name", "price", "stock")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header is missing the " + required + " column");
+            }
+        }
+
+        boolean[] malformed = {false};
+        return () -> {
+            if (malformed[0]) {
+                return null;
+            }
+            List<String> record;
+            try {
+                record = csv.next();
+            } catch (IOException e) {
+                // The reader cannot resynchronize after a broken quote, so this is the last row reported
+                malformed[0] = true;
+                return new ParsedRow(csv.getRecordLine(), null, "Malformed CSV: " + e.getMessage());
+            }
+            if (record == null) {
+                return null;
+            }
+            int line = csv.getRecordLine();
+            ProductImportRow row = new ProductImportRow();
+            try {
+                row.setName(column(record, columns, "name"));
+                row.setDescription(column(record, columns, "description"));
+                row.setCategory(column(record, columns, "category"));
+                row.setMaterials(column(record, columns, "materials"));
+                row.setPrice(parseDouble(column(record, columns, "price")));
+                row.setStock(parseInteger(column(record, columns, "stock")));
+                row.setEthicalScore(parseDouble(column(record, columns, "ethicalscore")));
+                String imageKeys = column(record, columns, "imagekeys");
+                if (imageKeys != null) {
+                    row.setImageKeys(List.of(imageKeys.split(";")));
+                }
+            } catch (NumberFormatException e) {
+                return new ParsedRow(line, row, "Invalid number: " + e.getMessage());
+            }
+            return new ParsedRow(line, row, null);
+        };
+    }
+
+    private RowSource ndjsonSource(BufferedReader reader) {
+        int[] lineNumber = {0};
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber[0]++;
+            } while (line != null && line.isBlank());
+            if (line == null) {
+                return null;
+            }
+            try {
+                return new ParsedRow(lineNumber[0], objectMapper.readValue(line, ProductImportRow.class), null);
+            } catch (JsonProcessingException e) {
+                return new ParsedRow(lineNumber[0], null, "Malformed JSON");
+            }
+        };
+    }
+
+    // Excel and other Windows tools start UTF-8 exports with a byte order mark
+    private static void skipByteOrderMark(BufferedReader reader) throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+    }
+
+    private static String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index);
+        return value.isBlank() ? null : value;
+    }
+
+    private static Double parseDouble(String value) {
+        return value == null ? null : Double.valueOf(value.trim());
+    }
+
+    private static Integer parseInteger(String value) {
+        return value == null ? null : Integer.valueOf(value.trim());
+    }
+
+    private static String trimToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
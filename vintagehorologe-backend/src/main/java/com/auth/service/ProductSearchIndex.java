@@ -0,0 +1,275 @@
+package com.auth.service;
+
+import com.auth.dto.ProductDocument;
+import com.auth.dto.ProductSummaryDTO;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over active products, ranked with BM25 over weighted fields
+ * (name, category, artisan, materials, description). Built from the database once the
+ * application is ready and kept current from {@link ProductChangedEvent}s; queries never
+ * touch the database.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final double MAX_ETHICAL_SCORE = 5.0;
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float ARTISAN_WEIGHT = 1.5f;
+    private static final float MATERIALS_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "by", "for", "from", "in", "is", "it", "of", "on", "or", "the",
+            "to", "with");
+
+    private final ProductDocumentLoader documentLoader;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private Map<Long, IndexedDocument> documents = new HashMap<>();
+    private double totalLength;
+
+    private volatile boolean rebuilding;
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    private record IndexedDocument(ProductDocument document, Map<String, Float> termWeights, float length) {
+    }
+
+    private record ScoredDocument(Long id, double score) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuilding = true;
+        changedDuringRebuild.clear();
+        try {
+            NavigableMap<String, Map<Long, Float>> newPostings = new TreeMap<>();
+            Map<Long, IndexedDocument> newDocuments = new HashMap<>();
+            double[] newTotalLength = {0};
+            documentLoader.forEachActive(document -> {
+                IndexedDocument indexed = analyze(document);
+                newDocuments.put(document.id(), indexed);
+                indexed.termWeights().forEach((term, weight) ->
+                        newPostings.computeIfAbsent(term, t -> new HashMap<>()).put(document.id(), weight));
+                newTotalLength[0] += indexed.length();
+            });
+
+            lock.writeLock().lock();
+            try {
+                postings = newPostings;
+                documents = newDocuments;
+                totalLength = newTotalLength[0];
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Search index built with {} products and {} terms", newDocuments.size(), newPostings.size());
+        } finally {
+            rebuilding = false;
+        }
+        // Changes committed while the snapshot was loading may be missing from it
+        refresh(new ArrayList<>(changedDuringRebuild));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (rebuilding) {
+            changedDuringRebuild.addAll(event.productIds());
+        }
+        refresh(event.productIds());
+    }
+
+    private void refresh(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Map<Long, ProductDocument> documents = documentLoader.findActive(productIds);
+        lock.writeLock().lock();
+        try {
+            for (Long productId : productIds) {
+                remove(productId);
+                ProductDocument document = documents.get(productId);
+                if (document != null) {
+                    add(document);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<ProductSummaryDTO> search(String query, int limit, double ethicalBoost) {
+        // The last term is still being typed unless the query ends with a separator; it is kept even when
+        // it is a stop word so far, since "an" may be on its way to "antique"
+        boolean lastIsPrefix = query != null && !query.isEmpty()
+                && Character.isLetterOrDigit(query.charAt(query.length() - 1));
+        List<String> terms = tokenize(query, lastIsPrefix);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return List.of();
+            }
+            double avgLength = totalLength / documents.size();
+            Map<Long, Double> scores = new HashMap<>();
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                Map<Long, Double> termScores = lastIsPrefix && i == terms.size() - 1 ?
+                        scorePrefix(term, avgLength) :
+                        scoreTerm(term, postings.get(term), avgLength);
+                termScores.forEach((id, score) -> scores.merge(id, score, Double::sum));
+            }
+
+            PriorityQueue<ScoredDocument> top = new PriorityQueue<>(Comparator.comparingDouble(ScoredDocument::score));
+            scores.forEach((id, score) -> {
+                Double ethicalScore = documents.get(id).document().ethicalScore();
+                if (ethicalBoost > 0 && ethicalScore != null) {
+                    score *= 1 + ethicalBoost * Math.min(ethicalScore, MAX_ETHICAL_SCORE) / MAX_ETHICAL_SCORE;
+                }
+                if (top.size() < limit) {
+                    top.add(new ScoredDocument(id, score));
+                } else if (score > top.peek().score()) {
+                    top.poll();
+                    top.add(new ScoredDocument(id, score));
+                }
+            });
+
+            List<ProductSummaryDTO> results = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                results.add(new ProductSummaryDTO(documents.get(top.poll().id()).document()));
+            }
+            Collections.reverse(results);
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Best score per document across the indexed terms starting with the prefix
+    private Map<Long, Double> scorePrefix(String prefix, double avgLength) {
+        Map<Long, Double> best = new HashMap<>();
+        int expansions = 0;
+        for (Map.Entry<String, Map<Long, Float>> entry :
+                postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet()) {
+            if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            scoreTerm(entry.getKey(), entry.getValue(), avgLength)
+                    .forEach((id, score) -> best.merge(id, score, Math::max));
+        }
+        return best;
+    }
+
+    private Map<Long, Double> scoreTerm(String term, Map<Long, Float> posting, double avgLength) {
+        if (posting == null || posting.isEmpty()) {
+            return Map.of();
+        }
+        int docCount = documents.size();
+        double idf = Math.log(1 + (docCount - posting.size() + 0.5) / (posting.size() + 0.5));
+        Map<Long, Double> scores = new HashMap<>(posting.size() * 2);
+        posting.forEach((id, tf) -> {
+            double norm = K1 * (1 - B + B * documents.get(id).length() / avgLength);
+            scores.put(id, idf * tf * (K1 + 1) / (tf + norm));
+        });
+        return scores;
+    }
+
+    private void add(ProductDocument document) {
+        IndexedDocument indexed = analyze(document);
+        documents.put(document.id(), indexed);
+        indexed.termWeights().forEach((term, weight) ->
+                postings.computeIfAbsent(term, t -> new HashMap<>()).put(document.id(), weight));
+        totalLength += indexed.length();
+    }
+
+    private void remove(Long productId) {
+        IndexedDocument existing = documents.remove(productId);
+        if (existing == null) {
+            return;
+        }
+        for (String term : existing.termWeights().keySet()) {
+            Map<Long, Float> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(productId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= existing.length();
+    }
+
+    private static IndexedDocument analyze(ProductDocument document) {
+        Map<String, Float> termWeights = new HashMap<>();
+        float length = 0;
+        length += addField(termWeights, document.name(), NAME_WEIGHT);
+        length += addField(termWeights, document.category(), CATEGORY_WEIGHT);
+        length += addField(termWeights, document.artisanName(), ARTISAN_WEIGHT);
+        length += addField(termWeights, document.materials(), MATERIALS_WEIGHT);
+        length += addField(termWeights, document.description(), DESCRIPTION_WEIGHT);
+        return new IndexedDocument(document, termWeights, Math.max(length, 1));
+    }
+
+    private static float addField(Map<String, Float> termWeights, String text, float weight) {
+        List<String> tokens = tokenize(text);
+        tokens.forEach(token -> termWeights.merge(token, weight, Float::sum));
+        return tokens.size() * weight;
+    }
+
+    public static List<String> tokenize(String text) {
+        return tokenize(text, false);
+    }
+
+    private static List<String> tokenize(String text, boolean keepLastToken) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        String[] words = NON_WORD.split(normalized);
+        for (int i = 0; i < words.length; i++) {
+            String token = words[i];
+            if (!token.isEmpty() && (!STOP_WORDS.contains(token) || keepLastToken && i == words.length - 1)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
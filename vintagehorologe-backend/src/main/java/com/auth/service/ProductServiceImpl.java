@@ -1,36 +1,89 @@
 package com.auth.service;
 
+import com.auth.dto.BulkProductUpdateRequest;
+import com.auth.dto.BulkProductUpdateResult;
+import com.auth.dto.CursorPage;
+import com.auth.dto.InventoryItemDTO;
+import com.auth.dto.ProductDTO;
+import com.auth.dto.ProductImageDTO;
+import com.auth.model.DerivativeStatus;
 import com.auth.model.Product;
 import com.auth.model.ProductImage;
 import com.auth.repository.ProductImageRepository;
 import com.auth.repository.ProductRepository;
-import com.auth.repository.ReviewRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Types;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductServiceImpl {
 
     private final ProductRepository productRepository;
     private final ProductImageRepository productImageRepository;
-    private final ReviewRepository reviewRepository;
+    private final ImageStorage imageStorage;
+    private final BlobReferenceService blobReferenceService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
 
+    // Null leaves the column unchanged; the artisan condition keeps ownership enforced in the statement itself
+    private static final String BULK_UPDATE = "UPDATE product SET stock = COALESCE(?, stock), " +
+            "price = COALESCE(?, price), updated_at = ? WHERE id = ? AND artisan_id = ?";
+    private static final int[] BULK_UPDATE_TYPES = {Types.INTEGER, Types.DOUBLE, Types.TIMESTAMP, Types.BIGINT, Types.BIGINT};
+
+    @Value("${catalog.page.default-size:24}")
+    private int defaultPageSize;
+
+    @Value("${catalog.page.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${inventory.bulk-update.max-items:1000}")
+    private int maxBulkItems;
+
+    @Value("${inventory.low-stock-threshold:5}")
+    private int lowStockThreshold;
+
+    // Request sort parameter -> Product property; anything else is rejected
+    private static final Map<String, String> INVENTORY_SORTS = Map.of(
+            "name", "name",
+            "price", "price",
+            "stock", "stock",
+            "created", "createdAt");
 
     @Autowired
     public ProductServiceImpl(ProductRepository productRepository,
                               ProductImageRepository productImageRepository,
-                              ReviewRepository reviewRepository) {
+                              ImageStorage imageStorage,
+                              BlobReferenceService blobReferenceService,
+                              ApplicationEventPublisher eventPublisher,
+                              JdbcTemplate jdbcTemplate) {
         this.productRepository = productRepository;
         this.productImageRepository = productImageRepository;
-        this.reviewRepository = reviewRepository;
-
+        this.imageStorage = imageStorage;
+        this.blobReferenceService = blobReferenceService;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Transactional
@@ -38,11 +91,14 @@ public class ProductServiceImpl {
         Product savedProduct = productRepository.save(product);
 
         if (images != null && !images.isEmpty()) {
-            List<ProductImage> productImages = saveProductImages(savedProduct, images);
-            savedProduct.setImages(productImages);
+            List<ProductImage> productImages = saveProductImages(savedProduct, storeUploads(images));
+            // Mutate the managed collection: replacing an orphan-removal collection fails on flush
+            savedProduct.getImages().addAll(productImages);
         }
 
-        return productRepository.save(savedProduct);
+        Product result = productRepository.save(savedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.of(result.getId()));
+        return result;
     }
 
     public List<Product> getProductsByArtisanId(Long artisanId) {
@@ -63,14 +119,27 @@ public class ProductServiceImpl {
         managedProduct.setMaterials(productDetails.getMaterials());
 
         if (newImages != null && !newImages.isEmpty()) {
-            productImageRepository.deleteAll(managedProduct.getImages());
-            managedProduct.getImages().clear();
+            List<StoredUpload> uploads = storeUploads(newImages);
+            List<String> currentKeys = managedProduct.getImages().stream()
+                    .map(ProductImage::getStorageKey).collect(Collectors.toList());
+            List<String> uploadedKeys = uploads.stream().map(StoredUpload::key).collect(Collectors.toList());
+
+            // Re-sending the same files in the same order is a metadata-only update
+            if (!uploadedKeys.equals(currentKeys)) {
+                blobReferenceService.releaseAll(managedProduct.getImages());
+                productImageRepository.deleteAll(managedProduct.getImages());
+                managedProduct.getImages().clear();
 
-            List<ProductImage> productImages = saveProductImages(managedProduct, newImages);
-            managedProduct.getImages().addAll(productImages);
+                List<ProductImage> productImages = saveProductImages(managedProduct, uploads);
+                managedProduct.getImages().addAll(productImages);
+                // Replacing only the images leaves the product's own columns clean, so bump updatedAt for ETags
+                managedProduct.setUpdatedAt(LocalDateTime.now());
+            }
         }
 
-        return productRepository.save(managedProduct);
+        Product result = productRepository.save(managedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.of(productId));
+        return result;
     }
 
     @Transactional
@@ -83,36 +152,189 @@ public class ProductServiceImpl {
         productRepository.save(product);
 
         // Optional: Clear images if needed
+        blobReferenceService.releaseAll(product.getImages());
         productImageRepository.deleteAll(product.getImages());
+        eventPublisher.publishEvent(ProductChangedEvent.of(productId));
     }
 
-    private List<ProductImage> saveProductImages(Product product, List<MultipartFile> images) throws IOException {
-        List<ProductImage> productImages = new ArrayList<>();
+    private record StoredUpload(String key, long size, String contentType) {
+    }
 
+    // Identical bytes resolve to the same key, so a duplicate upload adds no new blob
+    private List<StoredUpload> storeUploads(List<MultipartFile> images) throws IOException {
+        List<StoredUpload> uploads = new ArrayList<>();
         for (MultipartFile image : images) {
             if (!image.isEmpty()) {
-                ProductImage productImage = new ProductImage();
-                productImage.setImageData(image.getBytes());
-                productImage.setImageType(image.getContentType());
-                productImage.setProduct(product);
-                productImages.add(productImage);
+                ImageStorage.StoredImage stored;
+                try (InputStream in = image.getInputStream()) {
+                    stored = imageStorage.store(in);
+                }
+                blobReferenceService.track(stored.key());
+                uploads.add(new StoredUpload(stored.key(), stored.size(), image.getContentType()));
             }
         }
+        return uploads;
+    }
 
-        return productImageRepository.saveAll(productImages);
+    private List<ProductImage> saveProductImages(Product product, List<StoredUpload> uploads) {
+        List<ProductImage> productImages = new ArrayList<>();
+
+        for (StoredUpload upload : uploads) {
+            ProductImage productImage = new ProductImage();
+            productImage.setStorageKey(upload.key());
+            productImage.setContentLength(upload.size());
+            productImage.setImageType(upload.contentType());
+            productImage.setProduct(product);
+            // Renditions depend only on the bytes, so an earlier copy's can be shared
+            productImageRepository.findFirstByStorageKeyAndDerivativeStatusOrderByIdDesc(
+                    upload.key(), DerivativeStatus.READY).ifPresent(existing -> {
+                productImage.setThumbnailKey(existing.getThumbnailKey());
+                productImage.setCardKey(existing.getCardKey());
+                productImage.setDerivativeType(existing.getDerivativeType());
+                productImage.setDerivativeStatus(DerivativeStatus.READY);
+            });
+            blobReferenceService.acquire(productImage);
+            productImages.add(productImage);
+        }
+
+        List<ProductImage> saved = productImageRepository.saveAll(productImages);
+        List<Long> pendingIds = saved.stream()
+                .filter(image -> image.getDerivativeStatus() == DerivativeStatus.PENDING)
+                .map(ProductImage::getId)
+                .collect(Collectors.toList());
+        if (!pendingIds.isEmpty()) {
+            eventPublisher.publishEvent(new ProductImagesStoredEvent(pendingIds));
+        }
+        return saved;
     }
 
     @Transactional(readOnly = true)
     public Product getProductWithImages(Long productId) {
-        Product product = productRepository.findByIdWithImages(productId)
+        // Review aggregates come with the row through the embedded ReviewStats counters
+        return productRepository.findByIdWithImages(productId)
                 .orElseThrow(() -> new NoSuchElementException("Product not found"));
+    }
+
+    // Builds the detail snapshot inside the transaction so no lazy association is touched afterwards
+    @Transactional(readOnly = true)
+    public ProductDTO getProductDetail(Long productId) {
+        return new ProductDTO(getProductWithImages(productId));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<ProductDTO> getCatalogPage(String category, String cursor, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+
+        LocalDateTime afterCreatedAt = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] keys = KeysetCursor.decode(cursor, 2);
+            try {
+                afterCreatedAt = LocalDateTime.parse(keys[0]);
+                afterId = Long.valueOf(keys[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+        }
+
+        // Fetch one extra row to learn whether another page exists
+        List<Product> rows = productRepository.findCatalogPage(
+                category, afterCreatedAt, afterId, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<Product> products = hasMore ? rows.subList(0, pageSize) : rows;
 
-        Double avgRating = reviewRepository.findAverageRatingByProductId(productId);
-        Long reviewCount = reviewRepository.countByProductId(productId);
-        product.setReviewStats(avgRating != null ? avgRating : 0.0,
-                reviewCount != null ? reviewCount : 0L);
+        Map<Long, List<ProductImageDTO>> images = findImageRefs(products);
+        List<ProductDTO> items = products.stream()
+                .map(product -> new ProductDTO(product, images.getOrDefault(product.getId(), List.of())))
+                .collect(Collectors.toList());
 
-        return product;
+        String nextCursor = null;
+        if (hasMore) {
+            Product last = products.get(products.size() - 1);
+            nextCursor = KeysetCursor.encode(last.getCreatedAt(), last.getId());
+        }
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+
+    // All items go out as one JDBC batch of a single statement, each row limited to the artisan's own products
+    @Transactional
+    public BulkProductUpdateResult bulkUpdate(Long artisanId, BulkProductUpdateRequest request) {
+        List<BulkProductUpdateRequest.Item> items = request.getItems() != null ? request.getItems() : List.of();
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("No items to update");
+        }
+        if (items.size() > maxBulkItems) {
+            throw new IllegalArgumentException("At most " + maxBulkItems + " items can be updated at once");
+        }
+
+        Set<Long> requestedIds = new LinkedHashSet<>();
+        for (BulkProductUpdateRequest.Item item : items) {
+            if (item.getProductId() == null || !requestedIds.add(item.getProductId())) {
+                throw new IllegalArgumentException("Each item needs a distinct productId");
+            }
+            if (item.getStock() == null && item.getPrice() == null) {
+                throw new IllegalArgumentException("Item " + item.getProductId() + " has neither stock nor price");
+            }
+            if (item.getStock() != null) {
+                if (item.getStock() < 0) {
+                    throw new IllegalArgumentException("Stock cannot be negative for product " + item.getProductId());
+                }
+            }
+            if (item.getPrice() != null) {
+                if (item.getPrice() < 0 || item.getPrice().isNaN()) {
+                    throw new IllegalArgumentException("Price cannot be negative for product " + item.getProductId());
+                }
+            }
+        }
+
+        Set<Long> ownedIds = new HashSet<>(productRepository.findIdsOwnedBy(requestedIds, artisanId));
+        List<Long> rejectedIds = requestedIds.stream()
+                .filter(id -> !ownedIds.contains(id))
+                .collect(Collectors.toList());
+
+        Calendar now = JdbcTimestamps.now();
+        List<Object[]> rows = items.stream()
+                .filter(item -> ownedIds.contains(item.getProductId()))
+                .map(item -> new Object[]{item.getStock(), item.getPrice(), now, item.getProductId(), artisanId})
+                .collect(Collectors.toList());
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(BULK_UPDATE, rows, BULK_UPDATE_TYPES);
+        }
+
+        if (!ownedIds.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(ownedIds));
+        }
+        return new BulkProductUpdateResult(ownedIds.size(), rejectedIds);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<InventoryItemDTO> getArtisanInventory(Long artisanId, boolean lowStockOnly, Boolean active,
+                                                      String sort, String direction, int page, Integer size) {
+        String property = INVENTORY_SORTS.get(sort == null ? "created" : sort);
+        if (property == null) {
+            throw new IllegalArgumentException("Unknown sort: " + sort);
+        }
+        Sort.Direction sortDirection = direction == null ? Sort.Direction.DESC : Sort.Direction.fromString(direction);
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), pageSize,
+                Sort.by(sortDirection, property).and(Sort.by(Sort.Direction.DESC, "id")));
+
+        return productRepository.findInventory(artisanId, lowStockOnly ? lowStockThreshold : null, active, pageRequest)
+                .map(view -> new InventoryItemDTO(view, lowStockThreshold));
+    }
+
+    // Image references per product id, from one query that never touches image data
+    public Map<Long, List<ProductImageDTO>> findImageRefs(List<Product> products) {
+        Map<Long, List<ProductImageDTO>> images = new HashMap<>();
+        if (products.isEmpty()) {
+            return images;
+        }
+        List<Long> productIds = products.stream().map(Product::getId).collect(Collectors.toList());
+        for (Object[] row : productImageRepository.findImageRefsByProductIds(productIds)) {
+            images.computeIfAbsent((Long) row[0], id -> new ArrayList<>())
+                    .add(new ProductImageDTO((Long) row[1], (DerivativeStatus) row[2]));
+        }
+        return images;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,147 @@
+package com.auth.service;
+
+import com.auth.dto.SuggestionDTO;
+import com.auth.repository.OrderItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Typeahead over product names, categories and artisan names. Every word start of every
+ * entry is a key in one sorted array, so a prefix lookup is a binary search followed by a
+ * short scan. Entries are ranked by units sold; the whole structure is rebuilt in the
+ * background and swapped in atomically, so lookups never block or hit the database.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductSuggestService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSuggestService.class);
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final ProductDocumentLoader documentLoader;
+    private final OrderItemRepository orderItemRepository;
+
+    @Value("${catalog.suggest.max-scan:2000}")
+    private int maxScan;
+
+    private final AtomicReference<Dictionary> dictionary = new AtomicReference<>(Dictionary.EMPTY);
+
+    // keys[i] is a normalized word-start suffix of entries[i]; both arrays are sorted by key
+    private record Dictionary(String[] keys, SuggestionDTO[] entries) {
+        static final Dictionary EMPTY = new Dictionary(new String[0], new SuggestionDTO[0]);
+    }
+
+    private record Key(String key, SuggestionDTO entry) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${catalog.suggest.rebuild-interval-ms:600000}",
+            initialDelayString = "${catalog.suggest.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        Map<Long, Long> unitsSold = new HashMap<>();
+        for (Object[] row : orderItemRepository.sumPaidQuantityByProduct()) {
+            unitsSold.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+
+        List<SuggestionDTO> entries = new ArrayList<>();
+        Map<String, Long> categories = new HashMap<>();
+        Map<String, Long> artisans = new HashMap<>();
+        documentLoader.forEachActive(document -> {
+            long popularity = unitsSold.getOrDefault(document.id(), 0L);
+            if (document.name() != null && !document.name().isBlank()) {
+                entries.add(new SuggestionDTO(document.name().trim(), SuggestionDTO.Type.PRODUCT,
+                        document.id(), popularity));
+            }
+            if (document.category() != null && !document.category().isBlank()) {
+                categories.merge(document.category().trim(), popularity, Long::sum);
+            }
+            if (document.artisanName() != null && !document.artisanName().isBlank()) {
+                artisans.merge(document.artisanName().trim(), popularity, Long::sum);
+            }
+        });
+        categories.forEach((category, popularity) ->
+                entries.add(new SuggestionDTO(category, SuggestionDTO.Type.CATEGORY, null, popularity)));
+        artisans.forEach((artisan, popularity) ->
+                entries.add(new SuggestionDTO(artisan, SuggestionDTO.Type.ARTISAN, null, popularity)));
+
+        List<Key> keys = new ArrayList<>();
+        for (SuggestionDTO entry : entries) {
+            String normalized = normalize(entry.getText());
+            int start = 0;
+            while (start >= 0) {
+                keys.add(new Key(normalized.substring(start), entry));
+                int space = normalized.indexOf(' ', start);
+                start = space >= 0 ? space + 1 : -1;
+            }
+        }
+        keys.sort(Comparator.comparing(Key::key));
+
+        String[] keyArray = new String[keys.size()];
+        SuggestionDTO[] entryArray = new SuggestionDTO[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            keyArray[i] = keys.get(i).key();
+            entryArray[i] = keys.get(i).entry();
+        }
+        dictionary.set(new Dictionary(keyArray, entryArray));
+        log.info("Suggestion dictionary rebuilt with {} entries and {} keys", entries.size(), keyArray.length);
+    }
+
+    public List<SuggestionDTO> suggest(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Dictionary current = dictionary.get();
+        int index = Arrays.binarySearch(current.keys(), prefix);
+        if (index < 0) {
+            index = -index - 1;
+        }
+
+        Comparator<SuggestionDTO> ranking = Comparator.comparingLong(SuggestionDTO::getPopularity)
+                .thenComparing(entry -> -entry.getText().length());
+        PriorityQueue<SuggestionDTO> top = new PriorityQueue<>(ranking);
+        // The same entry appears once per matching word start
+        Set<SuggestionDTO> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        int end = Math.min(current.keys().length, index + maxScan);
+        for (int i = index; i < end && current.keys()[i].startsWith(prefix); i++) {
+            SuggestionDTO entry = current.entries()[i];
+            if (!seen.add(entry)) {
+                continue;
+            }
+            if (top.size() < limit) {
+                top.add(entry);
+            } else if (ranking.compare(entry, top.peek()) > 0) {
+                top.poll();
+                top.add(entry);
+            }
+        }
+
+        List<SuggestionDTO> results = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            results.add(top.poll());
+        }
+        Collections.reverse(results);
+        return results;
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return NON_WORD.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+}
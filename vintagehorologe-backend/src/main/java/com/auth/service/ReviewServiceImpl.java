@@ -1,20 +1,28 @@
 // ReviewServiceImpl.java
 package com.auth.service;
 
+import com.auth.dto.CursorPage;
 import com.auth.dto.ReviewDTO;
 import com.auth.dto.ReviewRequest;
 import com.auth.model.Product;
 import com.auth.model.Review;
+import com.auth.model.ReviewSort;
+import com.auth.model.ReviewStats;
 import com.auth.model.User;
 import com.auth.repository.ProductRepository;
 import com.auth.repository.ReviewRepository;
 import com.auth.repository.UserRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class ReviewServiceImpl {
@@ -22,14 +30,23 @@ public class ReviewServiceImpl {
     private final ReviewRepository reviewRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${reviews.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${reviews.page.max-size:100}")
+    private int maxPageSize;
 
     @Autowired
     public ReviewServiceImpl(ReviewRepository reviewRepository,
                              ProductRepository productRepository,
-                             UserRepository userRepository) {
+                             UserRepository userRepository,
+                             ApplicationEventPublisher eventPublisher) {
         this.reviewRepository = reviewRepository;
         this.productRepository = productRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -44,6 +61,12 @@ public class ReviewServiceImpl {
             throw new RuntimeException("User already reviewed this product");
         }
 
+        if (request.getRating() == null
+                || request.getRating() < ReviewStats.MIN_RATING
+                || request.getRating() > ReviewStats.MAX_RATING) {
+            throw new RuntimeException("Rating must be between 1 and 5");
+        }
+
         Review review = new Review();
         review.setProduct(product);
         review.setUser(user);
@@ -51,14 +74,67 @@ public class ReviewServiceImpl {
         review.setComment(request.getComment());
 
         Review savedReview = reviewRepository.save(review);
+        productRepository.incrementReviewStats(product.getId(), request.getRating(), LocalDateTime.now());
+        // Rating aggregates are part of the cached product view
+        eventPublisher.publishEvent(ProductChangedEvent.of(product.getId()));
         return convertToDTO(savedReview);
     }
 
-    public List<ReviewDTO> getProductReviews(Long productId) {
-        return reviewRepository.findByProductId(productId)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // The plain list the original endpoints return: every review, unbounded as before; clients that need
+    // bounded responses use the cursor-paginated variant
+    public List<ReviewDTO> getProductReviews(Long productId, String sortParam) {
+        Pageable all = Pageable.unpaged();
+        return switch (ReviewSort.fromParam(sortParam)) {
+            case NEWEST -> reviewRepository.findPageNewest(productId, null, null, all);
+            case HIGHEST -> reviewRepository.findPageHighest(productId, null, null, all);
+            case LOWEST -> reviewRepository.findPageLowest(productId, null, null, all);
+        };
+    }
+
+    // One query per page: reviewer emails are projected in, so no per-review lazy loading
+    public CursorPage<ReviewDTO> getProductReviews(Long productId, String sortParam, String cursor, Integer size) {
+        ReviewSort sort = ReviewSort.fromParam(sortParam);
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        String afterKey = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] keys = KeysetCursor.decode(cursor, 3);
+            if (!sort.getParam().equals(keys[0])) {
+                throw new IllegalArgumentException("Cursor does not match sort order");
+            }
+            afterKey = keys[1];
+            try {
+                afterId = Long.valueOf(keys[2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+        }
+
+        List<ReviewDTO> rows;
+        try {
+            rows = switch (sort) {
+                case NEWEST -> reviewRepository.findPageNewest(productId,
+                        afterKey != null ? LocalDateTime.parse(afterKey) : null, afterId, limit);
+                case HIGHEST -> reviewRepository.findPageHighest(productId,
+                        afterKey != null ? Integer.valueOf(afterKey) : null, afterId, limit);
+                case LOWEST -> reviewRepository.findPageLowest(productId,
+                        afterKey != null ? Integer.valueOf(afterKey) : null, afterId, limit);
+            };
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<ReviewDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            ReviewDTO last = items.get(items.size() - 1);
+            Object key = sort == ReviewSort.NEWEST ? last.getCreatedAt() : last.getRating();
+            nextCursor = KeysetCursor.encode(sort.getParam(), key, last.getId());
+        }
+        return new CursorPage<>(items, nextCursor, hasMore);
     }
 
     private ReviewDTO convertToDTO(Review review) {
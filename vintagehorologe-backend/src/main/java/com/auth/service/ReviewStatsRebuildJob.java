@@ -0,0 +1,124 @@
+package com.auth.service;
+
+import com.auth.model.ReviewStats;
+import com.auth.repository.ProductRepository;
+import com.auth.repository.ReviewRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Recomputes the denormalized ReviewStats from the review table and repairs products that drifted
+@Service
+public class ReviewStatsRebuildJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewStatsRebuildJob.class);
+
+    private final ProductRepository productRepository;
+    private final ReviewRepository reviewRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${reviews.stats.rebuild-batch-size:500}")
+    private int batchSize;
+
+    @Value("${reviews.stats.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    public ReviewStatsRebuildJob(ProductRepository productRepository,
+                                 ReviewRepository reviewRepository,
+                                 ApplicationEventPublisher eventPublisher,
+                                 PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.reviewRepository = reviewRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Without a full rebuild, products that have reviews but still show none are backfilled
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            rebuild();
+        } else {
+            backfill();
+        }
+    }
+
+    // Returns the number of products whose counters were initialized
+    public synchronized int backfill() {
+        List<Long> productIds = productRepository.findIdsWithUncountedReviews();
+        int repaired = 0;
+        for (int from = 0; from < productIds.size(); from += batchSize) {
+            repaired += repairBatch(productIds.subList(from, Math.min(from + batchSize, productIds.size())));
+        }
+        if (repaired > 0) {
+            log.info("Review stats backfill initialized {} products", repaired);
+        }
+        return repaired;
+    }
+
+    // Returns the number of products whose counters were corrected
+    public synchronized int rebuild() {
+        int repaired = 0;
+        Long afterId = null;
+        while (true) {
+            List<Long> productIds = productRepository.findIdsAfter(afterId, PageRequest.of(0, batchSize));
+            if (productIds.isEmpty()) {
+                break;
+            }
+
+            repaired += repairBatch(productIds);
+            afterId = productIds.get(productIds.size() - 1);
+        }
+        log.info("Review stats rebuild repaired {} products", repaired);
+        return repaired;
+    }
+
+    private int repairBatch(List<Long> productIds) {
+        List<Long> changed = transactionTemplate.execute(status -> repair(productIds));
+        if (!changed.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(changed));
+        }
+        return changed.size();
+    }
+
+    // Locks the batch before reading anything, so the aggregate sees every review whose counter update
+    // has committed, and reviews still in flight increment the repaired counters after this commits
+    private List<Long> repair(List<Long> productIds) {
+        productRepository.lockByIds(productIds);
+
+        Map<Long, ReviewStats> expected = new HashMap<>();
+        for (Object[] row : reviewRepository.aggregateStatsByProductIds(productIds)) {
+            expected.put((Long) row[0], new ReviewStats(count(row[1]), count(row[2]), count(row[3]),
+                    count(row[4]), count(row[5]), count(row[6]), count(row[7])));
+        }
+
+        List<Long> changed = new ArrayList<>();
+        for (Object[] row : productRepository.findReviewStatsByIds(productIds)) {
+            Long productId = (Long) row[0];
+            ReviewStats stats = expected.getOrDefault(productId, new ReviewStats());
+            if (!stats.equals(row[1])) {
+                productRepository.overwriteReviewStats(productId, stats, LocalDateTime.now());
+                changed.add(productId);
+            }
+        }
+        return changed;
+    }
+
+    private static long count(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+}
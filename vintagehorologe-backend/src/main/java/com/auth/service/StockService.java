@@ -0,0 +1,68 @@
+package com.auth.service;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Takes stock for paid orders with one JDBC batch of conditional decrements. The database checks and
+ * applies each decrement in a single statement, so concurrent payments cannot both take the last unit.
+ * Runs inside the caller's transaction; a shortfall on any line throws and rolls the whole order back.
+ */
+@Service
+public class StockService {
+
+    // updated_at moves with stock so cached and conditional product reads revalidate
+    private static final String DECREMENT = "UPDATE product SET stock = stock - ?, updated_at = ? " +
+            "WHERE id = ? AND stock >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StockService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void decrement(Map<Long, Integer> quantities) {
+        // Sorted by id so concurrent orders lock shared product rows in the same order and cannot deadlock
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        if (lines.isEmpty()) {
+            return;
+        }
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<Long, Integer> line = lines.get(i);
+                ps.setInt(1, line.getValue());
+                JdbcTimestamps.setNow(ps, 2);
+                ps.setLong(3, line.getKey());
+                ps.setInt(4, line.getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lines.size();
+            }
+        });
+
+        List<Long> shortfall = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            // Anything but exactly one row, including a driver that reports no count, is treated as a shortfall
+            if (updated[i] != 1) {
+                shortfall.add(lines.get(i).getKey());
+            }
+        }
+        if (!shortfall.isEmpty()) {
+            throw new RuntimeException("Insufficient stock for products: " + shortfall);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.auth.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * One reentrant lock per user, created on demand and dropped when its last holder releases
+ * it. Requests for the same user run one at a time; different users never share a lock, and
+ * idle users cost nothing.
+ */
+@Component
+public class UserLocks {
+
+    private final Map<String, Entry> locks = new ConcurrentHashMap<>();
+
+    public <T> T withLock(String userKey, Supplier<T> action) {
+        Entry entry = acquire(userKey);
+        try {
+            return action.get();
+        } finally {
+            release(userKey, entry);
+        }
+    }
+
+    // Holds the lock until the surrounding transaction has committed or rolled back,
+    // so the next request for the user sees its result
+    public void lockUntilCompletion(String userKey) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("lockUntilCompletion needs an active transaction");
+        }
+        Entry entry = acquire(userKey);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                release(userKey, entry);
+            }
+        });
+    }
+
+    private Entry acquire(String userKey) {
+        // holders is only changed inside compute, which is atomic per key
+        Entry entry = locks.compute(userKey, (key, existing) -> {
+            Entry current = existing != null ? existing : new Entry();
+            current.holders++;
+            return current;
+        });
+        entry.lock.lock();
+        return entry;
+    }
+
+    private void release(String userKey, Entry entry) {
+        entry.lock.unlock();
+        locks.computeIfPresent(userKey, (key, current) -> --current.holders == 0 ? null : current);
+    }
+
+    private static final class Entry {
+        private final ReentrantLock lock = new ReentrantLock();
+        private int holders;
+    }
+}
@@ -0,0 +1,508 @@
+package com.auth.service;
+
+import com.auth.dto.CartBatchRequest;
+import com.auth.dto.CartSnapshot;
+import com.auth.dto.ProductImageDTO;
+import com.auth.model.Cart;
+import com.auth.model.CartItem;
+import com.auth.model.DerivativeStatus;
+import com.auth.model.Product;
+import com.auth.repository.CartRepository;
+import com.auth.repository.ProductImageRepository;
+import com.auth.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Optional write-behind cart ({@code cart.write-behind.enabled}). The working copy of each
+ * active cart lives in memory and mutations are applied to it under a per-user lock, so a
+ * click costs a product read instead of a cart transaction. Dirty carts are written back to
+ * cart/cart_item on a timer, before checkout and on shutdown; however many clicks happened
+ * in between, each flush is one transaction per cart. Lines added since the last flush carry
+ * a negative temporary item id until the flush assigns the real one, and both ids keep
+ * working for update and remove.
+ */
+@Service
+public class WriteBehindCartEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindCartEngine.class);
+
+    private final CartService cartService;
+    private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final ProductImageRepository productImageRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, WorkingCart> carts = new ConcurrentHashMap<>();
+    private final AtomicLong temporaryIds = new AtomicLong();
+
+    @Value("${cart.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cart.write-behind.idle-minutes:30}")
+    private long idleMinutes;
+
+    @Value("${cart.batch.max-operations:100}")
+    private int maxBatchOperations;
+
+    public WriteBehindCartEngine(CartService cartService,
+                                 CartRepository cartRepository,
+                                 ProductRepository productRepository,
+                                 ProductImageRepository productImageRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.cartService = cartService;
+        this.cartRepository = cartRepository;
+        this.productRepository = productRepository;
+        this.productImageRepository = productImageRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CartSnapshot getCart(String userEmail) {
+        return withCart(userEmail, WorkingCart::snapshot);
+    }
+
+    public CartSnapshot addToCart(String userEmail, Long productId, int quantity) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+
+        // Same checks as CartService.addToCart
+        if (product.getStock() <= 0) {
+            throw new RuntimeException("Product is out of stock");
+        }
+        if (quantity > product.getStock()) {
+            throw new RuntimeException("Requested quantity exceeds available stock");
+        }
+
+        return withCart(userEmail, cart -> {
+            Line line = cart.lines.get(productId);
+            if (line == null) {
+                line = new Line(productId, -temporaryIds.incrementAndGet());
+                attachPrimaryImages(List.of(line));
+                cart.lines.put(productId, line);
+            }
+            line.refresh(product);
+            line.quantity += quantity;
+            cart.version++;
+            return cart.snapshot();
+        });
+    }
+
+    public CartSnapshot updateCartItem(String userEmail, Long itemId, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be at least 1");
+        }
+        return withCart(userEmail, cart -> {
+            Line line = find(cart.lines.values(), itemId);
+            if (line == null) {
+                throw new RuntimeException("Cart or item not found");
+            }
+            Product product = productRepository.findById(line.productId)
+                    .orElseThrow(() -> new RuntimeException("Product not found"));
+            if (quantity > product.getStock()) {
+                throw new RuntimeException("Requested quantity exceeds available stock");
+            }
+            line.refresh(product);
+            line.quantity = quantity;
+            cart.version++;
+            return cart.snapshot();
+        });
+    }
+
+    public CartSnapshot removeFromCart(String userEmail, Long itemId) {
+        return withCart(userEmail, cart -> {
+            Line line = find(cart.lines.values(), itemId);
+            if (line != null) {
+                cart.lines.remove(line.productId);
+                cart.version++;
+            }
+            return cart.snapshot();
+        });
+    }
+
+    // Same rules as CartService.applyBatch, applied to a copy of the working cart that replaces it on success
+    public CartSnapshot applyBatch(String userEmail, List<CartBatchRequest.Operation> operations) {
+        CartService.validateBatch(operations, maxBatchOperations);
+        return withCart(userEmail, cart -> {
+            Set<Long> productIds = new HashSet<>(cart.lines.keySet());
+            for (CartBatchRequest.Operation operation : operations) {
+                if (operation.type() == CartBatchRequest.Type.ADD) {
+                    productIds.add(operation.getProductId());
+                }
+            }
+            Map<Long, Product> products = productRepository.findAllByIdIn(productIds).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+            Map<Long, Line> lines = new LinkedHashMap<>();
+            cart.lines.forEach((productId, line) -> lines.put(productId, line.copy()));
+            Set<Long> touched = new HashSet<>();
+            for (CartBatchRequest.Operation operation : operations) {
+                switch (operation.type()) {
+                    case ADD -> {
+                        if (!products.containsKey(operation.getProductId())) {
+                            throw new IllegalArgumentException("Product not found: " + operation.getProductId());
+                        }
+                        lines.computeIfAbsent(operation.getProductId(),
+                                productId -> new Line(productId, -temporaryIds.incrementAndGet()))
+                                .quantity += operation.getQuantity();
+                        touched.add(operation.getProductId());
+                    }
+                    case UPDATE -> {
+                        Line line = find(lines.values(), operation.getItemId());
+                        if (line == null) {
+                            throw new IllegalArgumentException("Cart item not found: " + operation.getItemId());
+                        }
+                        line.quantity = operation.getQuantity();
+                        touched.add(line.productId);
+                    }
+                    case REMOVE -> {
+                        Line line = find(lines.values(), operation.getItemId());
+                        if (line != null) {
+                            lines.remove(line.productId);
+                        }
+                    }
+                }
+            }
+
+            for (Line line : lines.values()) {
+                Product product = products.get(line.productId);
+                if (product == null) {
+                    continue;
+                }
+                if (touched.contains(line.productId) && line.quantity > product.getStock()) {
+                    throw new IllegalArgumentException("Requested quantity exceeds available stock for product " +
+                            product.getId());
+                }
+                line.refresh(product);
+            }
+            attachPrimaryImages(lines.values());
+
+            cart.lines.clear();
+            cart.lines.putAll(lines);
+            cart.version++;
+            return cart.snapshot();
+        });
+    }
+
+    // Clears the stored cart in the caller's transaction and the working copy once that commits.
+    // Holding the flush lock until then keeps a timed flush of the old lines from writing them back.
+    public void clearCart(String userEmail) {
+        WorkingCart cart = withCart(userEmail, Function.identity());
+        cart.flushLock.lock();
+        try {
+            cartService.clearCart(userEmail);
+        } catch (RuntimeException e) {
+            cart.flushLock.unlock();
+            throw e;
+        }
+        onCommit(cart, () -> {
+            cart.lock.lock();
+            try {
+                cart.lines.clear();
+                cart.version++;
+                cart.flushedVersion = cart.version;
+            } finally {
+                cart.lock.unlock();
+            }
+        });
+    }
+
+    // Called before checkout so the order is priced from what the user sees
+    public void flush(String userEmail) {
+        WorkingCart cart = carts.get(userEmail);
+        if (cart != null) {
+            flush(cart, true);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-interval-ms:5000}",
+            initialDelayString = "${cart.write-behind.flush-interval-ms:5000}")
+    public void flushAll() {
+        flushCarts(false);
+    }
+
+    @PreDestroy
+    public void drain() {
+        if (!carts.isEmpty()) {
+            log.info("Flushing {} in-memory carts before shutdown", carts.size());
+            flushCarts(true);
+        }
+    }
+
+    private void flushCarts(boolean wait) {
+        if (carts.isEmpty()) {
+            return;
+        }
+        long idleNanos = TimeUnit.MINUTES.toNanos(idleMinutes);
+        for (WorkingCart cart : carts.values()) {
+            try {
+                // On the timer, a cart held by a checkout or payment in progress is picked up on the next pass
+                flush(cart, wait);
+            } catch (RuntimeException e) {
+                log.error("Failed to flush cart {}; will retry: {}", cart.cartId, e.getMessage());
+                continue;
+            }
+            retireIfIdle(cart, idleNanos);
+        }
+    }
+
+    private <T> T withCart(String userEmail, Function<WorkingCart, T> action) {
+        while (true) {
+            WorkingCart cart = carts.get(userEmail);
+            if (cart == null) {
+                WorkingCart loaded = load(userEmail);
+                cart = carts.putIfAbsent(userEmail, loaded);
+                if (cart == null) {
+                    cart = loaded;
+                }
+            }
+            cart.lock.lock();
+            try {
+                // Retired between lookup and lock: its state is stored, so load it again
+                if (!cart.retired) {
+                    cart.lastAccess = System.nanoTime();
+                    return action.apply(cart);
+                }
+            } finally {
+                cart.lock.unlock();
+            }
+        }
+    }
+
+    private WorkingCart load(String userEmail) {
+        CartSnapshot stored = cartService.getOrCreateCart(userEmail);
+        WorkingCart cart = new WorkingCart(userEmail, stored.id());
+        for (CartSnapshot.Item item : stored.items()) {
+            Line line = new Line(item.productId(), null);
+            line.itemId = item.itemId();
+            line.productName = item.productName();
+            line.unitPrice = item.unitPrice();
+            line.stock = item.stock();
+            line.primaryImage = item.primaryImage();
+            line.quantity = item.quantity();
+            cart.lines.put(item.productId(), line);
+        }
+        return cart;
+    }
+
+    // The write joins the caller's transaction (checkout) when there is one, so the cart only counts
+    // as flushed, and new lines only take their item ids, once that transaction has committed
+    private void flush(WorkingCart cart, boolean wait) {
+        // One writer per cart, so an older state can never commit after a newer one
+        if (wait) {
+            cart.flushLock.lock();
+        } else if (!cart.flushLock.tryLock()) {
+            return;
+        }
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        long version;
+        Map<Long, Long> itemIds;
+        try {
+            cart.lock.lock();
+            try {
+                version = cart.version;
+                cart.lines.values().forEach(line -> quantities.put(line.productId, line.quantity));
+            } finally {
+                cart.lock.unlock();
+            }
+            itemIds = version == cart.flushedVersion ? null
+                    : transactionTemplate.execute(status -> write(cart.cartId, quantities));
+        } catch (RuntimeException e) {
+            cart.flushLock.unlock();
+            throw e;
+        }
+        if (itemIds == null) {
+            cart.flushLock.unlock();
+            return;
+        }
+
+        onCommit(cart, () -> {
+            cart.lock.lock();
+            try {
+                for (Line line : cart.lines.values()) {
+                    if (line.itemId == null && itemIds.containsKey(line.productId)) {
+                        line.itemId = itemIds.get(line.productId);
+                    }
+                }
+                cart.flushedVersion = Math.max(cart.flushedVersion, version);
+            } finally {
+                cart.lock.unlock();
+            }
+        });
+    }
+
+    // Runs the action once the surrounding transaction commits (now, if there is none) and releases the
+    // cart's flush lock when it completes either way; a rollback leaves the working copy dirty for a retry
+    private static void onCommit(WorkingCart cart, Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                action.run();
+            } finally {
+                cart.flushLock.unlock();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                cart.flushLock.unlock();
+            }
+        });
+    }
+
+    // Reconciles cart_item with the working copy by product id; returns productId -> item id
+    private Map<Long, Long> write(Long cartId, Map<Long, Integer> quantities) {
+        Cart cart = cartRepository.findById(cartId)
+                .orElseThrow(() -> new NoSuchElementException("Cart not found: " + cartId));
+
+        cart.getItems().removeIf(item -> !quantities.containsKey(item.getProduct().getId()));
+        Map<Long, CartItem> items = new HashMap<>();
+        cart.getItems().forEach(item -> items.put(item.getProduct().getId(), item));
+
+        quantities.forEach((productId, quantity) -> {
+            CartItem item = items.get(productId);
+            if (item == null) {
+                item = new CartItem();
+                item.setProduct(productRepository.getReferenceById(productId));
+                item.setCart(cart);
+                cart.getItems().add(item);
+                items.put(productId, item);
+            }
+            item.setQuantity(quantity);
+        });
+        cartRepository.flush();
+
+        Map<Long, Long> itemIds = new HashMap<>();
+        items.forEach((productId, item) -> itemIds.put(productId, item.getId()));
+        return itemIds;
+    }
+
+    // New lines from a batch only know their product id; one reference query fills in their images
+    private void attachPrimaryImages(Collection<Line> lines) {
+        Map<Long, Line> added = lines.stream()
+                .filter(line -> line.itemId == null && line.primaryImage == null)
+                .collect(Collectors.toMap(line -> line.productId, Function.identity()));
+        if (added.isEmpty()) {
+            return;
+        }
+        for (Object[] row : productImageRepository.findImageRefsByProductIds(added.keySet())) {
+            Line line = added.get((Long) row[0]);
+            if (line.primaryImage == null) {
+                line.primaryImage = new ProductImageDTO((Long) row[1], (DerivativeStatus) row[2]);
+            }
+        }
+    }
+
+    private static Line find(Collection<Line> lines, Long itemId) {
+        for (Line line : lines) {
+            if (itemId.equals(line.itemId) || itemId.equals(line.temporaryId)) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    private void retireIfIdle(WorkingCart cart, long idleNanos) {
+        cart.lock.lock();
+        try {
+            if (cart.version == cart.flushedVersion && System.nanoTime() - cart.lastAccess > idleNanos) {
+                cart.retired = true;
+                carts.remove(cart.userEmail, cart);
+            }
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    private static final class WorkingCart {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ReentrantLock flushLock = new ReentrantLock();
+        private final String userEmail;
+        private final Long cartId;
+        // Keyed by product id: adding a product already in the cart raises its quantity
+        private final Map<Long, Line> lines = new LinkedHashMap<>();
+        private long version;
+        private long flushedVersion;
+        private long lastAccess = System.nanoTime();
+        private boolean retired;
+
+        private WorkingCart(String userEmail, Long cartId) {
+            this.userEmail = userEmail;
+            this.cartId = cartId;
+        }
+
+        private CartSnapshot snapshot() {
+            List<CartSnapshot.Item> items = new ArrayList<>(lines.size());
+            for (Line line : lines.values()) {
+                items.add(new CartSnapshot.Item(line.itemId != null ? line.itemId : line.temporaryId,
+                        line.productId, line.productName, line.unitPrice, line.quantity, line.stock,
+                        line.primaryImage));
+            }
+            return new CartSnapshot(cartId, items);
+        }
+    }
+
+    private static final class Line {
+        private final Long productId;
+        private final Long temporaryId;
+        private Long itemId;
+        private String productName;
+        private double unitPrice;
+        private Integer stock;
+        private ProductImageDTO primaryImage;
+        private int quantity;
+
+        private Line(Long productId, Long temporaryId) {
+            this.productId = productId;
+            this.temporaryId = temporaryId;
+        }
+
+        private Line copy() {
+            Line copy = new Line(productId, temporaryId);
+            copy.itemId = itemId;
+            copy.productName = productName;
+            copy.unitPrice = unitPrice;
+            copy.stock = stock;
+            copy.primaryImage = primaryImage;
+            copy.quantity = quantity;
+            return copy;
+        }
+
+        private void refresh(Product product) {
+            productName = product.getName();
+            unitPrice = product.getPrice();
+            stock = product.getStock();
+        }
+    }
+}
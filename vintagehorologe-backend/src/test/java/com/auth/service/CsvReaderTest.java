@@ -0,0 +1,55 @@
+package com.auth.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderTest {
+
+    @Test
+    void readsPlainAndQuotedFields() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("name,price\n\"Pocket, gold\",\"He said \"\"hi\"\"\"\n"));
+
+        assertThat(reader.next()).containsExactly("name", "price");
+        assertThat(reader.next()).containsExactly("Pocket, gold", "He said \"hi\"");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void keepsLineBreaksInsideQuotesAndCountsLines() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,\"first\nsecond\"\r\nb,c\r\n"));
+
+        assertThat(reader.next()).containsExactly("a", "first\nsecond");
+        assertThat(reader.getRecordLine()).isEqualTo(1);
+        assertThat(reader.next()).containsExactly("b", "c");
+        assertThat(reader.getRecordLine()).isEqualTo(3);
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void skipsBlankLinesAndKeepsEmptyFields() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("\n\r\na,,\n\nb"));
+
+        List<String> first = reader.next();
+        assertThat(first).containsExactly("a", "", "");
+        assertThat(reader.getRecordLine()).isEqualTo(3);
+        assertThat(reader.next()).containsExactly("b");
+        assertThat(reader.getRecordLine()).isEqualTo(5);
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void rejectsUnterminatedQuotedField() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("ok,row\nbad,\"never\nclosed"));
+
+        assertThat(reader.next()).containsExactly("ok", "row");
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("line 2");
+    }
+}
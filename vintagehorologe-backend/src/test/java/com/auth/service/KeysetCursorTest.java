@@ -0,0 +1,38 @@
+package com.auth.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    @Test
+    void roundTripsSortKeys() {
+        String cursor = KeysetCursor.encode("2026-10-18T02:25:49.618293", 42L);
+
+        assertThat(cursor).doesNotContain("=", "+", "/");
+        assertThat(KeysetCursor.decode(cursor, 2)).containsExactly("2026-10-18T02:25:49.618293", "42");
+    }
+
+    @Test
+    void keepsEmptyTrailingKeys() {
+        assertThat(KeysetCursor.decode(KeysetCursor.encode("a", ""), 2)).containsExactly("a", "");
+    }
+
+    @Test
+    void rejectsCursorWithWrongNumberOfKeys() {
+        String cursor = KeysetCursor.encode(7L);
+
+        assertThatThrownBy(() -> KeysetCursor.decode(cursor, 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    @Test
+    void rejectsCursorThatIsNotBase64() {
+        assertThatThrownBy(() -> KeysetCursor.decode("!!", 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+}
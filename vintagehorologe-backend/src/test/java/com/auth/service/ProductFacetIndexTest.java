@@ -0,0 +1,124 @@
+package com.auth.service;
+
+import com.auth.dto.FacetedProductPage;
+import com.auth.dto.ProductDocument;
+import com.auth.dto.ProductSummaryDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class ProductFacetIndexTest {
+
+    private final ProductDocumentLoader documentLoader = mock(ProductDocumentLoader.class);
+    private final ProductFacetIndex index = new ProductFacetIndex(documentLoader);
+
+    private void build(ProductDocument... documents) {
+        List<ProductDocument> catalog = new ArrayList<>(List.of(documents));
+        doAnswer(invocation -> {
+            Consumer<ProductDocument> consumer = invocation.getArgument(0);
+            catalog.forEach(consumer);
+            return null;
+        }).when(documentLoader).forEachActive(any());
+        index.rebuild();
+    }
+
+    @Test
+    void filtersOrWithinAFacetAndAndAcrossFacets() {
+        build(document(1L, "watch", "Brass, Steel", 80.0, 3),
+                document(2L, "clock", "oak", 300.0, 0),
+                document(3L, "watch", "gold", 1200.0, 1));
+
+        FacetedProductPage page = index.query(Map.of(
+                ProductFacetIndex.CATEGORY, Set.of("watch", "clock"),
+                ProductFacetIndex.IN_STOCK, Set.of("true")), null, 10);
+
+        assertThat(ids(page.getItems())).containsExactly(3L, 1L);
+        assertThat(page.getTotal()).isEqualTo(2);
+        // A facet's own selection does not narrow its counts
+        assertThat(page.getFacets().get(ProductFacetIndex.CATEGORY))
+                .containsEntry("watch", 2)
+                .doesNotContainKey("clock");
+        assertThat(page.getFacets().get(ProductFacetIndex.IN_STOCK))
+                .containsEntry("true", 2)
+                .containsEntry("false", 1);
+        assertThat(page.getFacets().get(ProductFacetIndex.PRICE_BAND))
+                .containsEntry("0-100", 1)
+                .containsEntry("1000-2500", 1);
+    }
+
+    @Test
+    void matchesMaterialSelectionsCaseInsensitively() {
+        build(document(1L, "watch", "Brass, Steel", 80.0, 3), document(2L, "clock", "oak", 300.0, 1));
+
+        FacetedProductPage page = index.query(Map.of(ProductFacetIndex.MATERIAL, Set.of(" BRASS")), null, 10);
+
+        assertThat(ids(page.getItems())).containsExactly(1L);
+    }
+
+    @Test
+    void pagesNewestFirstWithACursor() {
+        build(document(1L, "watch", null, 10.0, 1), document(2L, "watch", null, 10.0, 1),
+                document(3L, "watch", null, 10.0, 1));
+
+        FacetedProductPage first = index.query(Map.of(), null, 2);
+        FacetedProductPage second = index.query(Map.of(), first.getNextCursor(), 2);
+
+        assertThat(ids(first.getItems())).containsExactly(3L, 2L);
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(ids(second.getItems())).containsExactly(1L);
+        assertThat(second.isHasMore()).isFalse();
+    }
+
+    @Test
+    void keepsIdOrderWhenAnOlderProductIsReactivated() {
+        build(document(1L, "watch", null, 10.0, 1), document(3L, "watch", null, 10.0, 1));
+        when(documentLoader.findActive(anyCollection()))
+                .thenReturn(Map.of(2L, document(2L, "clock", null, 10.0, 1)));
+
+        index.onProductChanged(ProductChangedEvent.of(2L));
+
+        assertThat(ids(index.query(Map.of(), null, 10).getItems())).containsExactly(3L, 2L, 1L);
+        assertThat(ids(index.query(Map.of(), KeysetCursor.encode(3L), 1).getItems())).containsExactly(2L);
+        assertThat(index.query(Map.of(ProductFacetIndex.CATEGORY, Set.of("clock")), null, 10).getTotal())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void dropsProductsThatAreNoLongerActive() {
+        build(document(1L, "watch", null, 10.0, 1), document(2L, "clock", null, 10.0, 1));
+        when(documentLoader.findActive(anyCollection())).thenReturn(Map.of());
+
+        index.onProductChanged(ProductChangedEvent.of(2L));
+
+        FacetedProductPage page = index.query(Map.of(), null, 10);
+        assertThat(ids(page.getItems())).containsExactly(1L);
+        assertThat(page.getFacets().get(ProductFacetIndex.CATEGORY)).doesNotContainKey("clock");
+    }
+
+    @Test
+    void rejectsUnknownFacets() {
+        build();
+
+        assertThatThrownBy(() -> index.query(Map.of("colour", Set.of("red")), null, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<Long> ids(List<ProductSummaryDTO> items) {
+        return items.stream().map(ProductSummaryDTO::getId).toList();
+    }
+
+    private static ProductDocument document(Long id, String category, String materials, Double price, int stock) {
+        return new ProductDocument(id, "Product " + id, null, category, materials, price, stock, 3.0,
+                "Artisan", 0.0, 0L, null);
+    }
+}
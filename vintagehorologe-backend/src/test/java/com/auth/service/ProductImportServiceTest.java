@@ -0,0 +1,83 @@
+package com.auth.service;
+
+import com.auth.dto.ProductImportReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProductImportServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private ProductImportService service;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        service = new ProductImportService(jdbcTemplate, transactionManager, new ObjectMapper(),
+                mock(ImageStorage.class), mock(BlobReferenceService.class), mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(service, "batchSize", 500);
+        ReflectionTestUtils.setField(service, "maxRows", 100);
+    }
+
+    @Test
+    void failedChunkIsRetriedRowByRow() throws IOException {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenThrow(new DataIntegrityViolationException("batch"))
+                .thenReturn(List.of(11L))
+                .thenThrow(new DataIntegrityViolationException("row"))
+                .thenReturn(List.of(12L));
+
+        ProductImportReport report = importCsv("name,price,stock\nA,1,1\nB,2,1\nC,3,1\n");
+
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getRows()).extracting("row", "success", "productId").containsExactly(
+                tuple(2, true, 11L), tuple(3, false, null), tuple(4, true, 12L));
+        verify(jdbcTemplate, times(4)).execute(any(ConnectionCallback.class));
+    }
+
+    @Test
+    void rejectsOverlongColumnsAndNonFiniteNumbers() throws IOException {
+        ProductImportReport report = importCsv("name,price,stock,materials,ethicalScore\n"
+                + "A,Infinity,1,,\nB,1,1," + "m".repeat(256) + ",\nC,1,1,,NaN\n");
+
+        assertThat(report.getRows()).extracting("error").containsExactly(
+                "price must be zero or more",
+                "materials is longer than 255 characters",
+                "ethicalScore must be between 1 and 5");
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void bomIsSkippedAndUnterminatedQuoteEndsWithAPartialReport() throws IOException {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn(List.of(11L));
+
+        ProductImportReport report = importCsv("\uFEFFname,price,stock\nA,1,1\n\"B,2,1\nC,3,1\n");
+
+        assertThat(report.getTotal()).isEqualTo(2);
+        assertThat(report.getRows()).extracting("row", "success").containsExactly(tuple(2, true), tuple(3, false));
+        assertThat(report.getRows().get(1).getError()).startsWith("Malformed CSV");
+    }
+
+    private ProductImportReport importCsv(String csv) throws IOException {
+        return service.importProducts(1L, new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                ProductImportService.Format.CSV);
+    }
+}
@@ -0,0 +1,88 @@
+package com.auth.service;
+
+import com.auth.dto.ProductDocument;
+import com.auth.dto.ProductSummaryDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class ProductSearchIndexTest {
+
+    private final ProductDocumentLoader documentLoader = mock(ProductDocumentLoader.class);
+    private final ProductSearchIndex index = new ProductSearchIndex(documentLoader);
+
+    @BeforeEach
+    void setUp() {
+        List<ProductDocument> catalog = List.of(
+                document(1L, "Antique pocket watch", "watch", "brass", 2.0),
+                document(2L, "Mantel clock", "clock", "oak, brass", 4.0),
+                document(3L, "Café wall clock", "clock", "walnut", 1.0));
+        doAnswer(invocation -> {
+            Consumer<ProductDocument> consumer = invocation.getArgument(0);
+            catalog.forEach(consumer);
+            return null;
+        }).when(documentLoader).forEachActive(any());
+        index.rebuild();
+    }
+
+    @Test
+    void ranksNameMatchesAboveOtherFields() {
+        assertThat(ids(index.search("brass watch", 10, 0))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void matchesTheLastTermAsAPrefix() {
+        assertThat(ids(index.search("mant", 10, 0))).containsExactly(2L);
+        assertThat(ids(index.search("mant ", 10, 0))).isEmpty();
+    }
+
+    @Test
+    void keepsAStopWordThatIsStillBeingTyped() {
+        assertThat(ids(index.search("an", 10, 0))).containsExactly(1L);
+        assertThat(ids(index.search("the an", 10, 0))).containsExactly(1L);
+        assertThat(index.search("the ", 10, 0)).isEmpty();
+    }
+
+    @Test
+    void foldsCaseAndDiacritics() {
+        assertThat(ids(index.search("CAFE", 10, 0))).containsExactly(3L);
+    }
+
+    @Test
+    void ethicalBoostReordersEqualMatches() {
+        assertThat(ids(index.search("clock", 10, 0))).hasSize(2);
+        assertThat(ids(index.search("clock", 10, 1.0)).get(0)).isEqualTo(2L);
+        assertThat(ids(index.search("clock", 1, 1.0))).containsExactly(2L);
+    }
+
+    @Test
+    void refreshReplacesChangedAndDropsInactiveProducts() {
+        when(documentLoader.findActive(anyCollection()))
+                .thenReturn(Map.of(1L, document(1L, "Skeleton wristwatch", "watch", "steel", 2.0)));
+
+        index.onProductChanged(new ProductChangedEvent(List.of(1L, 2L)));
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.search("pocket", 10, 0)).isEmpty();
+        assertThat(index.search("mantel", 10, 0)).isEmpty();
+        assertThat(ids(index.search("skeleton", 10, 0))).containsExactly(1L);
+    }
+
+    private static List<Long> ids(List<ProductSummaryDTO> results) {
+        return results.stream().map(ProductSummaryDTO::getId).toList();
+    }
+
+    private static ProductDocument document(Long id, String name, String category, String materials,
+                                            Double ethicalScore) {
+        return new ProductDocument(id, name, null, category, materials, 100.0, 1, ethicalScore,
+                "Artisan", 0.0, 0L, null);
+    }
+}
@@ -0,0 +1,94 @@
+package com.auth.service;
+
+import com.auth.model.ReviewStats;
+import com.auth.repository.ProductRepository;
+import com.auth.repository.ReviewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class ReviewStatsRebuildJobTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ReviewRepository reviewRepository = mock(ReviewRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private ReviewStatsRebuildJob job;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        job = new ReviewStatsRebuildJob(productRepository, reviewRepository, eventPublisher, transactionManager);
+        ReflectionTestUtils.setField(job, "batchSize", 2);
+    }
+
+    @Test
+    void rebuildRepairsOnlyDriftedProductsAndLocksFirst() {
+        when(productRepository.findIdsAfter(isNull(), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(productRepository.findIdsAfter(eq(2L), any(Pageable.class))).thenReturn(List.of());
+        // Product 1: two reviews (5 and 3 stars) but counters say one; product 2: no reviews and none counted
+        when(reviewRepository.aggregateStatsByProductIds(List.of(1L, 2L)))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 2L, 8L, 0L, 0L, 1L, 0L, 1L}));
+        when(productRepository.findReviewStatsByIds(List.of(1L, 2L))).thenReturn(List.of(
+                new Object[]{1L, new ReviewStats(1, 5, 0, 0, 0, 0, 1)},
+                new Object[]{2L, new ReviewStats()}));
+
+        assertThat(job.rebuild()).isEqualTo(1);
+
+        InOrder order = inOrder(productRepository, reviewRepository);
+        order.verify(productRepository).lockByIds(List.of(1L, 2L));
+        order.verify(reviewRepository).aggregateStatsByProductIds(List.of(1L, 2L));
+        verify(productRepository).overwriteReviewStats(eq(1L), eq(new ReviewStats(2, 8, 0, 0, 1, 0, 1)), any());
+        verify(productRepository, never()).overwriteReviewStats(eq(2L), any(), any());
+        verify(eventPublisher).publishEvent(new ProductChangedEvent(List.of(1L)));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void startupBackfillsProductsWithUncountedReviewsInBatches() {
+        when(productRepository.findIdsWithUncountedReviews()).thenReturn(List.of(4L, 5L, 9L));
+        when(reviewRepository.aggregateStatsByProductIds(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> new Object[]{id, 1L, 4L, 0L, 0L, 0L, 1L, 0L}).toList();
+        });
+        when(productRepository.findReviewStatsByIds(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> new Object[]{id, new ReviewStats()}).toList();
+        });
+
+        job.rebuildOnStartup();
+
+        verify(productRepository).lockByIds(List.of(4L, 5L));
+        verify(productRepository).lockByIds(List.of(9L));
+        verify(productRepository, times(3))
+                .overwriteReviewStats(anyLong(), eq(new ReviewStats(1, 4, 0, 0, 0, 1, 0)), any());
+        verify(productRepository, never()).findIdsAfter(any(), any());
+    }
+
+    @Test
+    void startupRunsTheFullRebuildWhenEnabled() {
+        ReflectionTestUtils.setField(job, "rebuildOnStartup", true);
+        when(productRepository.findIdsAfter(any(), any(Pageable.class))).thenReturn(List.of());
+
+        job.rebuildOnStartup();
+
+        verify(productRepository).findIdsAfter(isNull(), any(Pageable.class));
+        verify(productRepository, never()).findIdsWithUncountedReviews();
+        verifyNoInteractions(eventPublisher);
+    }
+}
@@ -0,0 +1,83 @@
+package com.auth.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StockServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final StockService stockService = new StockService(jdbcTemplate);
+
+    @Test
+    void sendsLinesAsOneBatchInProductIdOrder() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenReturn(new int[]{1, 1});
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(7L, 2);
+        quantities.put(3L, 1);
+
+        stockService.decrement(quantities);
+
+        ArgumentCaptor<BatchPreparedStatementSetter> setter = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), setter.capture());
+        PreparedStatement first = mock(PreparedStatement.class);
+        PreparedStatement second = mock(PreparedStatement.class);
+        setter.getValue().setValues(first, 0);
+        setter.getValue().setValues(second, 1);
+        verify(first).setLong(3, 3L);
+        verify(second).setLong(3, 7L);
+        verify(second).setInt(1, 2);
+        verify(second).setInt(4, 2);
+        verify(second).setTimestamp(eq(2), any(Timestamp.class), any(Calendar.class));
+    }
+
+    @Test
+    void shortfallNamesEveryProductThatWasNotDecremented() {
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class)))
+                .thenReturn(new int[]{1, 0, Statement.SUCCESS_NO_INFO});
+
+        assertThatThrownBy(() -> stockService.decrement(Map.of(1L, 1, 2L, 5, 3L, 1)))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Insufficient stock for products: [2, 3]");
+    }
+
+    @Test
+    void shortfallRollsBackTheOrderTransaction() {
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenReturn(new int[]{1, 0});
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        TransactionStatus status = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager)
+                .executeWithoutResult(tx -> stockService.decrement(Map.of(1L, 1, 2L, 1))))
+                .hasMessageContaining("Insufficient stock");
+
+        verify(transactionManager).rollback(status);
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void emptyOrderDoesNotTouchTheDatabase() {
+        stockService.decrement(Map.of());
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
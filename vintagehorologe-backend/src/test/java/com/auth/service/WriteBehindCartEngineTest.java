@@ -0,0 +1,127 @@
+package com.auth.service;
+
+import com.auth.dto.CartSnapshot;
+import com.auth.model.Cart;
+import com.auth.model.Product;
+import com.auth.repository.CartRepository;
+import com.auth.repository.ProductImageRepository;
+import com.auth.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class WriteBehindCartEngineTest {
+
+    private static final String EMAIL = "buyer@example.com";
+    private static final Long CART_ID = 10L;
+
+    private final CartService cartService = mock(CartService.class);
+    private final CartRepository cartRepository = mock(CartRepository.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductImageRepository productImageRepository = mock(ProductImageRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private WriteBehindCartEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        Product product = Product.builder().id(1L).name("Pocket watch").price(120.0).stock(5).build();
+        Cart cart = new Cart();
+        cart.setId(CART_ID);
+        when(cartService.getOrCreateCart(EMAIL)).thenReturn(CartSnapshot.empty(CART_ID));
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(productRepository.getReferenceById(1L)).thenReturn(product);
+        when(productImageRepository.findImageRefsByProductIds(anyCollection())).thenReturn(List.of());
+        when(cartRepository.findById(CART_ID)).thenReturn(Optional.of(cart));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        engine = new WriteBehindCartEngine(cartService, cartRepository, productRepository,
+                productImageRepository, transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void flushAllWritesADirtyCartOnce() {
+        engine.addToCart(EMAIL, 1L, 2);
+
+        engine.flushAll();
+        engine.flushAll();
+
+        verify(cartRepository, times(1)).findById(CART_ID);
+    }
+
+    @Test
+    void flushRolledBackWithCheckoutIsRetried() {
+        engine.addToCart(EMAIL, 1L, 2);
+
+        TransactionSynchronizationManager.initSynchronization();
+        engine.flush(EMAIL);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        engine.flushAll();
+
+        verify(cartRepository, times(2)).findById(CART_ID);
+    }
+
+    @Test
+    void clearHoldsOffTimedFlushUntilItCommits() throws Exception {
+        engine.addToCart(EMAIL, 1L, 2);
+
+        TransactionSynchronizationManager.initSynchronization();
+        engine.clearCart(EMAIL);
+        verify(cartService).clearCart(EMAIL);
+        assertThat(engine.getCart(EMAIL).items()).hasSize(1);
+
+        // The scheduler thread must not write the old lines back while the clear is uncommitted
+        CompletableFuture.runAsync(engine::flushAll).get();
+        verify(cartRepository, never()).findById(any());
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(engine.getCart(EMAIL).items()).isEmpty();
+
+        engine.flushAll();
+        verify(cartRepository, never()).findById(any());
+    }
+
+    @Test
+    void clearRolledBackKeepsTheLines() {
+        engine.addToCart(EMAIL, 1L, 2);
+
+        TransactionSynchronizationManager.initSynchronization();
+        engine.clearCart(EMAIL);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(engine.getCart(EMAIL).items()).hasSize(1);
+        engine.flushAll();
+        verify(cartRepository).findById(CART_ID);
+    }
+
+    // Plays the end of the surrounding transaction the way the transaction manager would
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        }
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+    }
+}
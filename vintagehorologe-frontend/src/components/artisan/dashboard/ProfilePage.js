@@ -176,7 +176,7 @@ const ProfilePage = () => {
                                     />
                                     {profile.certificatePath && (
                                         <div className="mt-2 text-muted">
-                                            Current file: {profile.certificatePath}
+                                            A certificate is on file. Upload a new one to replace it.
                                         </div>
                                     )}
                                 </Form.Group>